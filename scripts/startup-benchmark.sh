@@ -0,0 +1,82 @@
+#!/usr/bin/env bash
+#
+# Startup benchmark for the Diet Maker web application.
+#
+# Builds the fast-start profile, trains an AppCDS archive, then starts the app in
+# each mode and reports the time until the first successful /diet/balanced
+# response and the resident set size at that moment.
+#
+# Usage: scripts/startup-benchmark.sh [runs]
+#   RUNS  number of starts per mode (default 3)
+#   PORT  port to bind (default 18080)
+#   SKIP_BUILD=1 reuses an existing target/ build
+#
+# Modes:
+#   default   java -jar on the fat jar
+#   lazy      fat jar with the faststart profile (lazy bean initialization)
+#   aot       thin classpath, Spring AOT initializers and lazy initialization
+#   aot-cds   as aot, plus the AppCDS archive from a training run
+
+set -euo pipefail
+
+cd "$(dirname "$0")/.."
+
+RUNS="${1:-${RUNS:-3}}"
+PORT="${PORT:-18080}"
+URL="http://localhost:${PORT}/diet/balanced"
+FAT_JAR="target/dietmaker-1.0.jar"
+FAST_DIR="target/fast-start"
+CLASSPATH="${FAST_DIR}/dietmaker-1.0-thin.jar:${FAST_DIR}/lib/*"
+ARCHIVE="${FAST_DIR}/dietmaker.jsa"
+
+if [ "${SKIP_BUILD:-0}" != "1" ]; then
+    echo "Building with the fast-start profile..."
+    mvn -B -q -Pfast-start package -DskipTests
+fi
+
+# Start the app with the given arguments, wait for the first 200 and print "<millis> <rss-kb>"
+measure() {
+    local start end pid rss
+    start=$(date +%s%N)
+    java "$@" --server.port="${PORT}" > /dev/null 2>&1 &
+    pid=$!
+    until curl -sf -o /dev/null "${URL}"; do
+        if ! kill -0 "${pid}" 2> /dev/null; then
+            echo "Application exited before serving ${URL}" >&2
+            exit 1
+        fi
+        sleep 0.01
+    done
+    end=$(date +%s%N)
+    rss=$(awk '/VmRSS/ {print $2}' "/proc/${pid}/status")
+    kill -TERM "${pid}"
+    wait "${pid}" 2> /dev/null || true
+    echo "$(( (end - start) / 1000000 )) ${rss}"
+}
+
+run_mode() {
+    local mode="$1"
+    shift
+    local total_ms=0 total_rss=0 result ms rss
+    for ((i = 1; i <= RUNS; i++)); do
+        result=$(measure "$@")
+        read -r ms rss <<< "${result}"
+        total_ms=$((total_ms + ms))
+        total_rss=$((total_rss + rss))
+    done
+    printf "%-10s %10d %10d\n" "${mode}" $((total_ms / RUNS)) $((total_rss / RUNS / 1024))
+}
+
+echo "Training AppCDS archive..."
+rm -f "${ARCHIVE}"
+measure -XX:ArchiveClassesAtExit="${ARCHIVE}" -Dspring.aot.enabled=true \
+        -cp "${CLASSPATH}" com.dietmaker.Main --spring.profiles.active=faststart > /dev/null
+
+echo
+printf "%-10s %10s %10s\n" "mode" "first-ms" "rss-mb"
+run_mode default -jar "${FAT_JAR}"
+run_mode lazy -jar "${FAT_JAR}" --spring.profiles.active=faststart
+run_mode aot -Dspring.aot.enabled=true -cp "${CLASSPATH}" com.dietmaker.Main \
+         --spring.profiles.active=faststart
+run_mode aot-cds -XX:SharedArchiveFile="${ARCHIVE}" -Xshare:auto -Dspring.aot.enabled=true \
+         -cp "${CLASSPATH}" com.dietmaker.Main --spring.profiles.active=faststart
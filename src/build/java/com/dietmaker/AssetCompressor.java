@@ -0,0 +1,85 @@
+package com.dietmaker;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Build-time step that writes gzip and brotli variants next to each static asset
+ *
+ * Runs from Maven in the process-classes phase against target/classes/static, so the
+ * compressed files end up in the jar and are served by WebConfig without any per-request
+ * compression work. It lives outside src/main so it is not part of the application: Maven
+ * runs it with the single-file source launcher, and the tests compile it alongside them.
+ * Variants that are not smaller than the original are skipped.
+ */
+public class AssetCompressor {
+    private static final Set<String> COMPRESSIBLE = Set.of("css", "js", "svg", "json", "txt", "html");
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: AssetCompressor <static-directory>");
+            System.exit(1);
+        }
+        Path root = Paths.get(args[0]);
+        if (!Files.isDirectory(root)) {
+            return;
+        }
+        Brotli4jLoader.ensureAvailability();
+
+        List<Path> assets;
+        try (Stream<Path> files = Files.walk(root)) {
+            assets = files.filter(Files::isRegularFile)
+                          .filter(AssetCompressor::isCompressible)
+                          .collect(Collectors.toList());
+        }
+        for (Path asset : assets) {
+            byte[] original = Files.readAllBytes(asset);
+            int gzipSize = writeIfSmaller(asset, ".gz", original, gzip(original));
+            int brotliSize = writeIfSmaller(asset, ".br", original,
+                                            Encoder.compress(original, new Encoder.Parameters().setQuality(11)));
+            System.out.printf("%s: %d bytes, gzip %d, brotli %d%n",
+                              root.relativize(asset), original.length, gzipSize, brotliSize);
+        }
+    }
+
+    static boolean isCompressible(Path file) {
+        String name = file.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && COMPRESSIBLE.contains(name.substring(dot + 1));
+    }
+
+    static byte[] gzip(byte[] data) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(data);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static int writeIfSmaller(Path asset, String suffix, byte[] original, byte[] compressed)
+            throws IOException {
+        Path target = asset.resolveSibling(asset.getFileName() + suffix);
+        if (compressed.length >= original.length) {
+            Files.deleteIfExists(target);
+            return -1;
+        }
+        Files.write(target, compressed);
+        return compressed.length;
+    }
+}
@@ -0,0 +1,132 @@
+package com.dietmaker;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit for one class of endpoints that adapts to observed latency
+ *
+ * Requests take a slot with {@link #tryAcquire()} and give it back with {@link #release(long)},
+ * reporting how long they took. The limit follows a latency gradient: the long-run average
+ * latency divided by the recent average. While recent latency matches the long-run level
+ * (gradient 1) the limit grows by about sqrt(limit) per adjustment, probing for capacity.
+ * When requests start queueing and recent latency rises, the gradient falls below 1 and the
+ * limit shrinks in proportion, at most halving per adjustment. A limit that traffic isn't
+ * using is not raised further.
+ *
+ * Acquiring is a lock-free compare-and-set; latency samples are folded in under a lock,
+ * which costs far less than the requests being measured.
+ */
+public class AdaptiveLimit {
+    private static final double SHORT_WINDOW = 10;    // samples in the recent latency average
+    private static final double LONG_WINDOW = 600;    // samples in the long-run latency average
+    private static final double RTT_TOLERANCE = 1.5;  // recent latency may be this much higher before shrinking
+    private static final double SMOOTHING = 0.2;      // weight of each new limit estimate
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight;
+    private final LongAdder accepted;
+    private final LongAdder shed;
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+
+    public AdaptiveLimit(String name, int minLimit, int initialLimit, int maxLimit) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max for " + name);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.inFlight = new AtomicInteger();
+        this.accepted = new LongAdder();
+        this.shed = new LongAdder();
+        this.limit = initialLimit;
+        this.estimatedLimit = initialLimit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Take a slot if one is free; a refused request is counted as shed
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                shed.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                accepted.increment();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Give back a slot taken by {@link #tryAcquire()}, with the request's latency
+     */
+    public void release(long rttNanos) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        onSample(rttNanos, inFlightBefore);
+    }
+
+    private synchronized void onSample(long rttNanos, int inFlightBefore) {
+        double rtt = Math.max(rttNanos, 1);
+        shortRtt = shortRtt == 0 ? rtt : shortRtt + (rtt - shortRtt) / SHORT_WINDOW;
+        longRtt = longRtt == 0 ? rtt : longRtt + (rtt - longRtt) / LONG_WINDOW;
+
+        // After latency drops for good the long-run average lags far behind; pull it down
+        // so it doesn't read as spare capacity forever
+        if (longRtt > 2 * shortRtt) {
+            longRtt *= 0.95;
+        }
+
+        // Traffic isn't using the current limit, so latency says nothing about a higher one
+        if (inFlightBefore < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, RTT_TOLERANCE * longRtt / shortRtt));
+        double next = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        next = estimatedLimit * (1 - SMOOTHING) + next * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimatedLimit;
+    }
+
+    public Stats getStats() {
+        double recentMillis;
+        synchronized (this) {
+            recentMillis = shortRtt / TimeUnit.MILLISECONDS.toNanos(1);
+        }
+        return new Stats(name, limit, inFlight.get(), accepted.sum(), shed.sum(), recentMillis);
+    }
+
+    /**
+     * Point-in-time counters for one endpoint class
+     */
+    public record Stats(String endpointClass, int limit, int inFlight, long accepted, long shed,
+                        double recentLatencyMillis) {
+    }
+}
@@ -0,0 +1,27 @@
+package com.dietmaker;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Operational endpoints; never shed, so they stay reachable under overload
+ */
+@RestController
+public class AdminController {
+
+    private final AdmissionControl admissionControl;
+
+    public AdminController(AdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    /**
+     * Current limit, in-flight count and accepted/shed totals per endpoint class
+     */
+    @GetMapping("/admin/admission")
+    public List<AdaptiveLimit.Stats> admission() {
+        return admissionControl.getStats();
+    }
+}
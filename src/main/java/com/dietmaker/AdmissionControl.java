@@ -0,0 +1,123 @@
+package com.dietmaker;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bulkheads that keep one class of endpoints from using up every server thread
+ *
+ * Each endpoint class gets its own {@link AdaptiveLimit}; a flood of API calls is shed
+ * inside the API bulkhead while pages keep their share of threads. The default maximums
+ * (96 pages, 60 API, 40 cluster and 4 export) add up to Tomcat's 200 worker threads, so
+ * limited requests are refused before they can queue behind a full thread pool. Bulk
+ * exports stream on async threads and get a bulkhead of a few slots. Static assets and the
+ * admin endpoints are never limited.
+ *
+ * Replication pushes ({@code PUT /cluster/users/..?mode=replica}) and membership changes
+ * bypass the cluster bulkhead: {@link ClusterNode} only logs a failed push, so shedding them
+ * would let replicas silently fall behind under load. They come only from other members
+ * (the /cluster endpoints require the cluster secret) and their rate is bounded by the
+ * client writes the sending node admitted. Forwarded reads and primary writes stay limited;
+ * the sender fails over or reports 503 for those.
+ *
+ * Per-class limits are set with dietmaker.admission.&lt;class&gt;.min-limit, .initial-limit
+ * and .max-limit; dietmaker.admission.enabled=false turns shedding off.
+ */
+@Component
+public class AdmissionControl {
+    public static final String PAGES = "pages";
+    public static final String API = "api";
+    public static final String CLUSTER = "cluster";
+    public static final String EXPORT = "export";
+
+    private static final List<String> UNLIMITED_PREFIXES = List.of("/css/", "/js/", "/images/", "/favicon.ico", "/admin/");
+
+    private final boolean enabled;
+    private final int retryAfterSeconds;
+    private final Map<String, AdaptiveLimit> limits;
+
+    public AdmissionControl(Environment environment,
+                            @Value("${dietmaker.admission.enabled:true}") boolean enabled,
+                            @Value("${dietmaker.admission.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.enabled = enabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.limits = new LinkedHashMap<>();
+        addLimit(environment, PAGES, 8, 40, 96);
+        addLimit(environment, API, 4, 20, 60);
+        addLimit(environment, CLUSTER, 4, 20, 40);
+        addLimit(environment, EXPORT, 1, 2, 4);
+    }
+
+    private void addLimit(Environment environment, String endpointClass, int min, int initial, int max) {
+        String prefix = "dietmaker.admission." + endpointClass + ".";
+        limits.put(endpointClass, new AdaptiveLimit(endpointClass,
+                environment.getProperty(prefix + "min-limit", Integer.class, min),
+                environment.getProperty(prefix + "initial-limit", Integer.class, initial),
+                environment.getProperty(prefix + "max-limit", Integer.class, max)));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * The bulkhead guarding a request, or null if it is never limited
+     */
+    public AdaptiveLimit limitFor(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        if (path.startsWith("/cluster/") && isReplication(request, path)) {
+            return null;
+        }
+        return limitFor(path);
+    }
+
+    private static boolean isReplication(HttpServletRequest request, String path) {
+        if ("POST".equals(request.getMethod()) && path.equals("/cluster/members")) {
+            return true;
+        }
+        return "PUT".equals(request.getMethod()) && "replica".equals(request.getParameter("mode"));
+    }
+
+    /**
+     * The bulkhead guarding a request path, or null if the path is never limited
+     */
+    public AdaptiveLimit limitFor(String path) {
+        if (!enabled) {
+            return null;
+        }
+        for (String prefix : UNLIMITED_PREFIXES) {
+            if (path.startsWith(prefix)) {
+                return null;
+            }
+        }
+        if (path.startsWith("/api/")) {
+            return limits.get(API);
+        }
+        if (path.startsWith("/cluster/")) {
+            return limits.get(CLUSTER);
+        }
+        if (path.startsWith("/export/")) {
+            return limits.get(EXPORT);
+        }
+        return limits.get(PAGES);
+    }
+
+    public List<AdaptiveLimit.Stats> getStats() {
+        List<AdaptiveLimit.Stats> stats = new ArrayList<>(limits.size());
+        for (AdaptiveLimit limit : limits.values()) {
+            stats.add(limit.getStats());
+        }
+        return stats;
+    }
+}
@@ -0,0 +1,161 @@
+package com.dietmaker;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Publishes the current {@link MealCatalog} and reloads it when the catalog directory changes
+ *
+ * Readers call {@link #current()}, a single volatile read, and keep using the snapshot they
+ * got for the rest of the request. When plan files change, a watcher thread builds the next
+ * snapshot off to the side and swaps it in with one reference write, so readers never block
+ * and never see a half-loaded catalog. A file that fails to parse leaves the previous
+ * snapshot in place. Reloads are serialized so versions are published in order.
+ *
+ * Meals may also be built from ingredients: a catalog meal named after a recipe in the
+ * service's {@link RecipeBook} takes the recipe's rolled-up nutrition. Changing an
+ * ingredient publishes a new snapshot in which only the plans holding an affected meal
+ * are rebuilt; file reloads keep applying the book.
+ *
+ * The directory is set with the dietmaker.catalog.dir property; without it only the
+ * built-in plans are served and nothing is watched. The bean is never lazy, even in the
+ * faststart profile, so a bad directory fails startup rather than the first request.
+ */
+@Service
+@Lazy(false)
+public class CatalogService {
+    private static final Logger log = LoggerFactory.getLogger(CatalogService.class);
+    private static final long DEBOUNCE_MILLIS = 200; // editors often write a file in several steps
+
+    private final Path directory;
+    private final AtomicLong versions;
+    private final WatchService watchService;
+    private final Thread watcher;
+    private final RecipeBook recipes;   // guarded by this
+    private volatile MealCatalog current;
+
+    public CatalogService(@Value("${dietmaker.catalog.dir:}") String directory) throws IOException {
+        this.versions = new AtomicLong();
+        this.recipes = new RecipeBook();
+        if (directory == null || directory.isBlank()) {
+            this.directory = null;
+            this.watchService = null;
+            this.watcher = null;
+            this.current = MealCatalog.defaults(versions.incrementAndGet());
+            return;
+        }
+
+        this.directory = Paths.get(directory).toAbsolutePath();
+        if (!Files.isDirectory(this.directory)) {
+            throw new IllegalArgumentException("Catalog directory does not exist: " + this.directory);
+        }
+        this.current = MealCatalog.load(this.directory, versions.incrementAndGet());
+        this.watchService = FileSystems.getDefault().newWatchService();
+        this.directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        this.watcher = new Thread(this::watch, "catalog-watcher");
+        this.watcher.setDaemon(true);
+        this.watcher.start();
+    }
+
+    /**
+     * The latest published catalog snapshot
+     */
+    public MealCatalog current() {
+        return current;
+    }
+
+    /**
+     * Build a new snapshot from the catalog directory and publish it
+     *
+     * @return true if a new snapshot was published
+     */
+    public synchronized boolean reload() {
+        if (directory == null) {
+            return false;
+        }
+        try {
+            long version = versions.incrementAndGet();
+            MealCatalog next = MealCatalog.load(directory, version)
+                    .withRecipeNutrition(recipes, recipes.getRecipeNames(), version);
+            current = next;
+            log.info("Published meal catalog version {} with {} plans", next.getVersion(), next.getPlans().size());
+            return true;
+        } catch (IOException | IllegalArgumentException e) {
+            log.warn("Keeping meal catalog version {}: reload failed: {}", current.getVersion(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Add ingredients or recipes, then publish a snapshot whose recipe meals reflect the book
+     */
+    public synchronized void updateRecipes(Consumer<RecipeBook> change) {
+        change.accept(recipes);
+        publish(current.withRecipeNutrition(recipes, recipes.getRecipeNames(), versions.incrementAndGet()));
+    }
+
+    /**
+     * Change an ingredient's nutrition per 100 g and publish a snapshot in which every meal
+     * using it, directly or through sub-recipes, is rolled up again
+     *
+     * @return names of the recipes that were recomputed
+     */
+    public synchronized List<String> updateIngredient(String name, double calories, double protein, double carbs,
+                                                      double fats) {
+        List<String> recomputed = recipes.updateIngredient(name, calories, protein, carbs, fats);
+        publish(current.withRecipeNutrition(recipes, new HashSet<>(recomputed), versions.incrementAndGet()));
+        return recomputed;
+    }
+
+    private void publish(MealCatalog next) {
+        current = next;
+        log.info("Published meal catalog version {} with {} plans", next.getVersion(), next.getPlans().size());
+    }
+
+    private void watch() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                key.pollEvents();
+                key.reset();
+                // Coalesce the burst of events from a single save into one reload
+                WatchKey more;
+                while ((more = watchService.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    more.pollEvents();
+                    more.reset();
+                }
+                reload();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // shutting down
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watcher.interrupt();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.dietmaker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Wires this process into the partitioned user store
+ *
+ * Without configuration the process is a one-node cluster holding every user itself.
+ * To run several processes, give each its own {@code dietmaker.cluster.self} address and
+ * the same {@code dietmaker.cluster.members} list and {@code dietmaker.cluster.secret}.
+ *
+ * The node-to-node endpoints under {@code /cluster} can overwrite any user and change the
+ * membership (which hands stored profiles to the new members), so every call must carry
+ * the shared secret in the {@value HttpClusterTransport#SECRET_HEADER} header. Without a
+ * secret they are disabled, which is all a one-node cluster needs.
+ */
+@Configuration
+public class ClusterConfig implements WebMvcConfigurer {
+    private final String secret;
+
+    public ClusterConfig(@Value("${dietmaker.cluster.secret:}") String secret) {
+        this.secret = secret;
+    }
+
+    @Bean
+    public ClusterNode clusterNode(@Value("${dietmaker.cluster.self:localhost:${server.port:8080}}") String self,
+                                   @Value("${dietmaker.cluster.members:}") String members,
+                                   @Value("${dietmaker.cluster.replication-factor:2}") int replicationFactor,
+                                   ObjectMapper mapper) {
+        List<String> memberList = parseMembers(members);
+        if (memberList.isEmpty()) {
+            memberList = List.of(self);
+        } else if (!memberList.contains(self)) {
+            throw new IllegalStateException("dietmaker.cluster.members must include this node (" + self + ")");
+        }
+        if (memberList.size() > 1 && secret.isBlank()) {
+            throw new IllegalStateException("dietmaker.cluster.secret is required when running with several members");
+        }
+        return new ClusterNode(self, memberList, replicationFactor, new HttpClusterTransport(mapper, secret));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Matched by the same path patterns as the handlers, so every /cluster handler is covered
+        registry.addInterceptor(new ClusterAuthInterceptor(secret)).addPathPatterns("/cluster", "/cluster/**");
+    }
+
+    static List<String> parseMembers(String members) {
+        return Arrays.stream(members.split(","))
+                .map(String::trim)
+                .filter(member -> !member.isEmpty())
+                .toList();
+    }
+
+    /**
+     * Rejects /cluster calls that don't carry the cluster secret
+     */
+    static class ClusterAuthInterceptor implements HandlerInterceptor {
+        private final byte[] secret;
+
+        ClusterAuthInterceptor(String secret) {
+            this.secret = secret == null || secret.isBlank() ? null : secret.getBytes(StandardCharsets.UTF_8);
+        }
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+                throws IOException {
+            if (secret == null) {
+                response.sendError(HttpStatus.FORBIDDEN.value(), "Cluster endpoints are disabled without dietmaker.cluster.secret");
+                return false;
+            }
+            String presented = request.getHeader(HttpClusterTransport.SECRET_HEADER);
+            if (presented == null || !MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8))) {
+                response.sendError(HttpStatus.FORBIDDEN.value(), "Missing or wrong cluster secret");
+                return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.dietmaker;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST endpoints of the partitioned user store
+ *
+ * {@code /api/users} is the client API and may be called on any node. It only reads and
+ * writes user records through {@link ClusterNode#get} and {@link ClusterNode#put}: it never
+ * touches membership, and a client-supplied version is ignored. {@code /cluster} is the
+ * node-to-node protocol used by {@link HttpClusterTransport} and by operators to announce
+ * membership changes; it requires the cluster secret (see {@link ClusterConfig}).
+ */
+@RestController
+public class ClusterController {
+
+    private final ClusterNode node;
+
+    public ClusterController(ClusterNode node) {
+        this.node = node;
+    }
+
+    @GetMapping("/api/users/{name}")
+    public ResponseEntity<UserRecord> getUser(@PathVariable String name) {
+        UserRecord record = node.get(name);
+        return record == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(record);
+    }
+
+    /**
+     * Create or replace a user, including favorite meals and weight history; a missing
+     * calorie goal is calculated from the profile
+     */
+    @PutMapping("/api/users/{name}")
+    public UserRecord putUser(@PathVariable String name, @RequestBody UserRecord body) {
+        if (body.activityLevel() == null || body.age() <= 0 || body.weight() <= 0 || body.height() <= 0) {
+            throw new IllegalArgumentException("age, weight, height and activityLevel are required");
+        }
+        double goal = body.dailyCalorieGoal();
+        if (goal <= 0) {
+            goal = new User(name, body.age(), body.weight(), body.height(), body.activityLevel()).getDailyCalorieGoal();
+        }
+        if (body.weightHistory() != null) {
+            new WeightHistory().readFrom(body.weightHistory()); // reject a corrupt history before storing it
+        }
+        return node.put(new UserRecord(name, body.age(), body.weight(), body.height(), body.activityLevel(),
+                                       body.dietPreference(), body.allergies(), goal, body.favoriteMeals(),
+                                       body.weightHistory(), 0, null));
+    }
+
+    @GetMapping("/cluster/users/{name}")
+    public ResponseEntity<UserRecord> getLocal(@PathVariable String name) {
+        UserRecord record = node.getLocal(name);
+        return record == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(record);
+    }
+
+    @PutMapping("/cluster/users/{name}")
+    public ResponseEntity<UserRecord> putLocal(@PathVariable String name, @RequestParam String mode,
+                                               @RequestBody UserRecord record) {
+        if (!name.equals(record.name())) {
+            throw new IllegalArgumentException("Record " + record.name() + " sent to " + name);
+        }
+        return switch (mode) {
+            case "primary" -> ResponseEntity.ok(node.putAsPrimary(record));
+            case "replica" -> ResponseEntity.ok(node.acceptReplica(record));
+            default -> throw new IllegalArgumentException("Unknown mode: " + mode);
+        };
+    }
+
+    @GetMapping("/cluster/members")
+    public List<String> getMembers() {
+        return node.getRing().getNodes().stream().sorted().toList();
+    }
+
+    /**
+     * Switch this node to a new member list and rebalance; send to every old and new member
+     */
+    @PostMapping("/cluster/members")
+    public ResponseEntity<Void> updateMembers(@RequestBody List<String> members) {
+        node.updateMembers(members);
+        return ResponseEntity.noContent().build();
+    }
+
+    @ExceptionHandler(ClusterNode.ClusterUnavailableException.class)
+    public ResponseEntity<String> unavailable(ClusterNode.ClusterUnavailableException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+    }
+
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<String> badRequest(IllegalArgumentException e) {
+        return ResponseEntity.badRequest().body(e.getMessage());
+    }
+}
@@ -0,0 +1,289 @@
+package com.dietmaker;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * One node of a partitioned user store
+ *
+ * Users are spread over the cluster by a {@link HashRing}; each user lives on
+ * {@code replicationFactor} nodes. Any node accepts reads and writes and forwards them
+ * when it doesn't hold the user. Writes go through the user's primary (the first live
+ * replica), which assigns a version and copies the record to the other replicas. Reads
+ * are served by the first replica that has the user.
+ *
+ * When membership changes, {@link #updateMembers} switches to the new ring and moves
+ * data: for each local user, the first old replica that is still in the cluster pushes
+ * the record to replicas that are new for it, and nodes that are no longer replicas drop
+ * their copy once the new replicas have it. A node leaving gracefully hands its data over
+ * the same way.
+ *
+ * Replication is synchronous but best-effort: an unreachable replica is logged and skipped,
+ * and the user is pushed to all its replicas again on the next rebalance. Copies are
+ * ordered by (version, origin node), see {@link UserRecord}. A replica answers every push
+ * with the copy it keeps, and the sender adopts that copy when it wins, so two nodes that
+ * accepted conflicting writes while cut off from each other converge the next time one
+ * replicates to the other.
+ */
+public class ClusterNode {
+    private static final Logger log = LoggerFactory.getLogger(ClusterNode.class);
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
+    private final String id;
+    private final int replicationFactor;
+    private final ClusterTransport transport;
+    private final Map<String, UserRecord> storage;
+    private final Set<String> unsynced;
+    private volatile HashRing ring;
+
+    public ClusterNode(String id, Collection<String> members, int replicationFactor, ClusterTransport transport) {
+        if (replicationFactor < 1) {
+            throw new IllegalArgumentException("Replication factor must be at least 1");
+        }
+        this.id = id;
+        this.replicationFactor = replicationFactor;
+        this.transport = transport;
+        this.storage = new ConcurrentHashMap<>();
+        this.unsynced = ConcurrentHashMap.newKeySet();
+        this.ring = new HashRing(members);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public HashRing getRing() {
+        return ring;
+    }
+
+    public int getReplicationFactor() {
+        return replicationFactor;
+    }
+
+    /**
+     * Read a user from wherever it lives, or null if no replica has it
+     *
+     * A replica missing the user locally (its handover may not have arrived yet) asks the
+     * other replicas before answering that there is none.
+     */
+    public UserRecord get(String name) {
+        List<String> replicas = ring.replicasFor(name, replicationFactor);
+        boolean answered = false;
+        if (replicas.contains(id)) {
+            UserRecord local = storage.get(name);
+            if (local != null) {
+                return local;
+            }
+            answered = true;
+        }
+        for (String replica : replicas) {
+            if (replica.equals(id)) {
+                continue;
+            }
+            try {
+                UserRecord copy = transport.fetch(replica, name);
+                if (copy != null) {
+                    return copy;
+                }
+                answered = true;
+            } catch (IOException e) {
+                log.warn("Node {} could not read {} from {}: {}", id, name, replica, e.getMessage());
+            }
+        }
+        if (answered) {
+            return null;
+        }
+        throw new ClusterUnavailableException("No replica of " + name + " is reachable");
+    }
+
+    /**
+     * Write a user through its primary
+     *
+     * @return the stored record with its new version
+     */
+    public UserRecord put(UserRecord record) {
+        List<String> replicas = ring.replicasFor(record.name(), replicationFactor);
+        for (String replica : replicas) {
+            if (replica.equals(id)) {
+                return putAsPrimary(record);
+            }
+            try {
+                return transport.putAsPrimary(replica, record);
+            } catch (IOException e) {
+                // fall through to the next replica, which takes over as primary
+                log.warn("Node {} could not forward {} to {}: {}", id, record.name(), replica, e.getMessage());
+            }
+        }
+        throw new ClusterUnavailableException("No replica of " + record.name() + " is reachable");
+    }
+
+    /**
+     * Accept a write as the user's primary: version it, store it and copy it to the other replicas
+     *
+     * A primary without a local copy (just joined, or its handover hasn't arrived) first asks
+     * the other replicas for the version to build on. If a replica still answers with a copy
+     * that beats the write, the write is versioned again above it and resent, so a write is
+     * never acknowledged after it has been superseded.
+     *
+     * @return the record as versioned here
+     */
+    public UserRecord putAsPrimary(UserRecord record) {
+        List<String> others = new ArrayList<>(ring.replicasFor(record.name(), replicationFactor));
+        others.remove(id);
+        long floor = storage.containsKey(record.name()) ? 0 : newestVersion(others, record.name());
+        for (int attempt = 0; attempt < MAX_WRITE_ATTEMPTS; attempt++) {
+            long base = floor;
+            UserRecord stored = storage.compute(record.name(), (name, existing) ->
+                    record.withVersion(Math.max(base, existing == null ? 0 : existing.version()) + 1, id));
+            UserRecord newest = stored;
+            for (String replica : others) {
+                UserRecord kept = replicateTo(replica, stored);
+                if (kept == null) {
+                    unsynced.add(record.name());
+                } else if (kept.isNewerThan(newest)) {
+                    newest = kept;
+                }
+            }
+            if (newest == stored) {
+                return stored;
+            }
+            floor = newest.version();
+        }
+        throw new ClusterUnavailableException("Write to " + record.name() + " kept being superseded by other replicas");
+    }
+
+    private long newestVersion(List<String> replicas, String name) {
+        long newest = 0;
+        for (String replica : replicas) {
+            try {
+                UserRecord copy = transport.fetch(replica, name);
+                if (copy != null) {
+                    newest = Math.max(newest, copy.version());
+                }
+            } catch (IOException e) {
+                log.warn("Node {} could not read the version of {} from {}: {}", id, name, replica, e.getMessage());
+            }
+        }
+        return newest;
+    }
+
+    /**
+     * Store a replicated copy unless a newer one is already present
+     *
+     * @return the copy kept
+     */
+    public UserRecord acceptReplica(UserRecord record) {
+        return storage.merge(record.name(), record, (existing, incoming) ->
+                incoming.isNewerThan(existing) ? incoming : existing);
+    }
+
+    /**
+     * This node's copy of a user, without forwarding
+     */
+    public UserRecord getLocal(String name) {
+        return storage.get(name);
+    }
+
+    public int localSize() {
+        return storage.size();
+    }
+
+    /**
+     * Lazily walk the users this node is primary for; over all nodes that is every user once
+     *
+     * Only as long as every ring member is asked: a member that is down but still in the
+     * membership takes its users with it, since their replicas are not primary for them.
+     * Exporting clients compare their node list against {@link #getRing()} for this reason.
+     */
+    public Stream<UserRecord> primaryRecords() {
+        HashRing current = ring;
+        return storage.values().stream().filter(record -> id.equals(current.primaryFor(record.name())));
+    }
+
+    /**
+     * Switch to a new membership and move data so every user again has its replicas
+     *
+     * A copy this node no longer replicates is dropped only once every new replica has
+     * acknowledged it. A user whose push failed is kept, and pushed to all its replicas on
+     * the next rebalance; announcing the same membership again retries them.
+     */
+    public synchronized void updateMembers(Collection<String> members) {
+        HashRing previous = ring;
+        HashRing next = new HashRing(members);
+        ring = next;
+        boolean leaving = !next.getNodes().contains(id);
+
+        int pushed = 0;
+        int dropped = 0;
+        for (UserRecord record : new ArrayList<>(storage.values())) {
+            List<String> oldReplicas = previous.replicasFor(record.name(), replicationFactor);
+            List<String> newReplicas = next.replicasFor(record.name(), replicationFactor);
+            boolean retry = unsynced.remove(record.name());
+            boolean dropping = !newReplicas.contains(id);
+            boolean acknowledged = true;
+            // A dropping copy is pushed even when another old replica survives, so it is
+            // never dropped while its new replicas may still lack it
+            if (leaving || retry || dropping || id.equals(firstSurvivor(oldReplicas, next))) {
+                for (String replica : newReplicas) {
+                    if (!replica.equals(id) && (leaving || retry || !oldReplicas.contains(replica))) {
+                        acknowledged &= replicateTo(replica, record) != null;
+                        pushed++;
+                    }
+                }
+            }
+            if (!acknowledged) {
+                unsynced.add(record.name());
+            } else if (dropping) {
+                storage.remove(record.name()); // also any newer copy adopted while pushing
+                dropped++;
+            }
+        }
+        log.info("Node {} rebalanced onto {} members: pushed {}, dropped {}, holding {}, {} left to retry",
+                 id, next.getNodes().size(), pushed, dropped, storage.size(), unsynced.size());
+    }
+
+    private static String firstSurvivor(List<String> oldReplicas, HashRing next) {
+        for (String replica : oldReplicas) {
+            if (next.getNodes().contains(replica)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Push a copy to a replica
+     *
+     * @return the copy the replica keeps, or null if it could not be reached
+     */
+    private UserRecord replicateTo(String replica, UserRecord record) {
+        try {
+            UserRecord kept = transport.replicate(replica, record);
+            if (kept != null && kept.isNewerThan(record)) {
+                acceptReplica(kept); // the replica had a conflicting write that wins
+            }
+            return kept;
+        } catch (IOException e) {
+            log.warn("Node {} could not replicate {} to {}: {}", id, record.name(), replica, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Thrown when none of a user's replicas can be reached
+     */
+    public static class ClusterUnavailableException extends RuntimeException {
+        public ClusterUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
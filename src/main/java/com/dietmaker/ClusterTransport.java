@@ -0,0 +1,33 @@
+package com.dietmaker;
+
+import java.io.IOException;
+
+/**
+ * How a {@link ClusterNode} talks to the other nodes
+ *
+ * {@link LocalClusterTransport} connects nodes living in the same JVM (tests, local
+ * experiments); {@link HttpClusterTransport} forwards over HTTP to nodes running as
+ * separate processes.
+ */
+public interface ClusterTransport {
+
+    /**
+     * Read a record from the target node's local storage, or null if it has none
+     */
+    UserRecord fetch(String node, String name) throws IOException;
+
+    /**
+     * Ask the target node to accept a client write as the key's primary
+     *
+     * @return the stored record, with the version the primary assigned
+     */
+    UserRecord putAsPrimary(String node, UserRecord record) throws IOException;
+
+    /**
+     * Push a versioned copy to the target node (replication and rebalancing)
+     *
+     * @return the copy the target keeps, which is newer than the one sent if it already
+     *         had a conflicting write
+     */
+    UserRecord replicate(String node, UserRecord record) throws IOException;
+}
@@ -1,6 +1,7 @@
 package com.dietmaker;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +29,19 @@ public class DietPlan {
         mealsByType.get(mealType).add(meal);
     }
 
+    /**
+     * Make the meal lists read-only, for plans shared between requests once they are built.
+     * Adding a meal afterwards throws UnsupportedOperationException.
+     */
+    DietPlan freeze() {
+        Map<String, List<Meal>> frozen = new HashMap<>();
+        for (Map.Entry<String, List<Meal>> entry : mealsByType.entrySet()) {
+            frozen.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+        mealsByType = Collections.unmodifiableMap(frozen);
+        return this;
+    }
+
     public List<Meal> getMealsByType(String mealType) {
         return mealsByType.getOrDefault(mealType, new ArrayList<>());
     }
@@ -40,6 +54,24 @@ public class DietPlan {
         return allMeals;
     }
 
+    /**
+     * Expected calories for a day on this plan: one average meal from each meal type
+     */
+    public double getAverageDailyCalories() {
+        double total = 0;
+        for (List<Meal> meals : mealsByType.values()) {
+            if (meals.isEmpty()) {
+                continue;
+            }
+            double sum = 0;
+            for (Meal meal : meals) {
+                sum += meal.getCalories();
+            }
+            total += sum / meals.size();
+        }
+        return total;
+    }
+
     public String getName() {
         return name;
     }
@@ -58,37 +90,67 @@ public class DietPlan {
     public static class DietPlanFactory {
         
         public static DietPlan createVegetarianDiet() {
+            // Micronutrients per serving are typical values for the recipe as described
             DietPlan vegDiet = new DietPlan("Vegetarian Diet", "Plant-based meals rich in nutrients and fiber");
             
             // Breakfast meals
             vegDiet.addMeal(new Meal("Oatmeal with Berries", "Steel-cut oats topped with fresh blueberries and almonds", 
-                                   320, 12.0, 58.0, 8.0, "Breakfast"));
+                                   320, 12.0, 58.0, 8.0, "Breakfast")
+                                   .withMicronutrients("fiber=8, vitamin_c=8, calcium=80, iron=3.5, magnesium=130, "
+                                                       + "potassium=380, sodium=10, zinc=2.5"));
             vegDiet.addMeal(new Meal("Avocado Toast", "Whole grain bread with mashed avocado, tomato, and seeds", 
-                                   280, 8.0, 35.0, 15.0, "Breakfast"));
+                                   280, 8.0, 35.0, 15.0, "Breakfast")
+                                   .withMicronutrients("fiber=9, vitamin_a=40, vitamin_c=12, folate=110, calcium=70, "
+                                                       + "iron=2.4, magnesium=70, potassium=620, sodium=320, zinc=1.5"));
             vegDiet.addMeal(new Meal("Greek Yogurt Parfait", "Greek yogurt layered with granola and fresh fruits", 
-                                   250, 15.0, 30.0, 8.0, "Breakfast"));
+                                   250, 15.0, 30.0, 8.0, "Breakfast")
+                                   .withMicronutrients("fiber=3, vitamin_c=15, vitamin_b12=1.0, calcium=250, "
+                                                       + "iron=1.2, magnesium=40, potassium=350, sodium=80, zinc=1.2, "
+                                                       + "added_sugar=9"));
             
             // Lunch meals
             vegDiet.addMeal(new Meal("Quinoa Buddha Bowl", "Quinoa with roasted vegetables, chickpeas, and tahini dressing", 
-                                   450, 18.0, 65.0, 14.0, "Lunch"));
+                                   450, 18.0, 65.0, 14.0, "Lunch")
+                                   .withMicronutrients("fiber=12, vitamin_a=450, vitamin_c=30, folate=250, "
+                                                       + "calcium=140, iron=5.5, magnesium=160, potassium=750, "
+                                                       + "sodium=420, zinc=3.0"));
             vegDiet.addMeal(new Meal("Caprese Salad", "Fresh mozzarella, tomatoes, and basil with balsamic glaze", 
-                                   320, 16.0, 12.0, 24.0, "Lunch"));
+                                   320, 16.0, 12.0, 24.0, "Lunch")
+                                   .withMicronutrients("fiber=2, vitamin_a=120, vitamin_c=18, calcium=420, iron=0.8, "
+                                                       + "magnesium=35, potassium=380, sodium=480, zinc=2.2, "
+                                                       + "added_sugar=4"));
             vegDiet.addMeal(new Meal("Vegetable Wrap", "Hummus wrap with fresh vegetables and sprouts", 
-                                   380, 12.0, 48.0, 16.0, "Lunch"));
+                                   380, 12.0, 48.0, 16.0, "Lunch")
+                                   .withMicronutrients("fiber=8, vitamin_a=300, vitamin_c=20, folate=120, "
+                                                       + "calcium=110, iron=3.0, magnesium=70, potassium=450, "
+                                                       + "sodium=650, zinc=1.6"));
             
             // Dinner meals
             vegDiet.addMeal(new Meal("Lentil Curry", "Red lentils cooked in aromatic spices with rice", 
-                                   420, 20.0, 68.0, 6.0, "Dinner"));
+                                   420, 20.0, 68.0, 6.0, "Dinner")
+                                   .withMicronutrients("fiber=15, vitamin_a=150, vitamin_c=10, folate=300, "
+                                                       + "calcium=70, iron=6.5, magnesium=90, potassium=700, "
+                                                       + "sodium=520, zinc=2.8"));
             vegDiet.addMeal(new Meal("Eggplant Parmesan", "Baked eggplant layers with marinara and cheese", 
-                                   380, 18.0, 32.0, 22.0, "Dinner"));
+                                   380, 18.0, 32.0, 22.0, "Dinner")
+                                   .withMicronutrients("fiber=8, vitamin_a=200, vitamin_c=12, calcium=350, iron=2.0, "
+                                                       + "magnesium=50, potassium=700, sodium=780, zinc=2.0, "
+                                                       + "added_sugar=5"));
             vegDiet.addMeal(new Meal("Stuffed Bell Peppers", "Bell peppers stuffed with rice, vegetables, and herbs", 
-                                   310, 12.0, 52.0, 8.0, "Dinner"));
+                                   310, 12.0, 52.0, 8.0, "Dinner")
+                                   .withMicronutrients("fiber=6, vitamin_a=280, vitamin_c=150, folate=80, "
+                                                       + "calcium=50, iron=2.0, magnesium=50, potassium=500, "
+                                                       + "sodium=380, zinc=1.2"));
             
             // Snacks
             vegDiet.addMeal(new Meal("Mixed Nuts", "Almonds, walnuts, and cashews", 
-                                   170, 6.0, 6.0, 15.0, "Snack"));
+                                   170, 6.0, 6.0, 15.0, "Snack")
+                                   .withMicronutrients("fiber=3, vitamin_e=5, calcium=40, iron=1.2, magnesium=75, "
+                                                       + "potassium=190, sodium=5, zinc=1.5, omega_3=0.7"));
             vegDiet.addMeal(new Meal("Apple with Peanut Butter", "Fresh apple slices with natural peanut butter", 
-                                   190, 7.0, 20.0, 12.0, "Snack"));
+                                   190, 7.0, 20.0, 12.0, "Snack")
+                                   .withMicronutrients("fiber=6, vitamin_c=8, calcium=20, iron=0.6, magnesium=50, "
+                                                       + "potassium=320, sodium=140, zinc=0.9, added_sugar=2"));
             
             return vegDiet;
         }
@@ -98,33 +160,65 @@ public class DietPlan {
             
             // Breakfast meals
             nonVegDiet.addMeal(new Meal("Scrambled Eggs with Toast", "Scrambled eggs with whole grain toast and avocado", 
-                                      350, 20.0, 28.0, 18.0, "Breakfast"));
+                                      350, 20.0, 28.0, 18.0, "Breakfast")
+                                      .withMicronutrients("fiber=6, vitamin_a=250, vitamin_d=2, vitamin_b12=1.0, "
+                                                          + "choline=300, calcium=110, iron=2.8, magnesium=55, "
+                                                          + "potassium=500, sodium=480, zinc=2.0"));
             nonVegDiet.addMeal(new Meal("Protein Smoothie", "Whey protein with banana, berries, and almond milk", 
-                                      280, 25.0, 32.0, 5.0, "Breakfast"));
+                                      280, 25.0, 32.0, 5.0, "Breakfast")
+                                      .withMicronutrients("fiber=4, vitamin_c=20, vitamin_d=2.5, calcium=450, "
+                                                          + "iron=1.0, magnesium=60, potassium=550, sodium=200, "
+                                                          + "zinc=1.0"));
             nonVegDiet.addMeal(new Meal("Turkey Sausage Breakfast", "Turkey sausage with sweet potato hash", 
-                                      320, 22.0, 25.0, 15.0, "Breakfast"));
+                                      320, 22.0, 25.0, 15.0, "Breakfast")
+                                      .withMicronutrients("fiber=4, vitamin_a=960, vitamin_c=3, vitamin_b12=0.8, "
+                                                          + "calcium=50, iron=2.0, magnesium=40, potassium=480, "
+                                                          + "sodium=620, zinc=2.5"));
             
             // Lunch meals
             nonVegDiet.addMeal(new Meal("Grilled Chicken Salad", "Mixed greens with grilled chicken breast and vinaigrette", 
-                                      380, 35.0, 12.0, 22.0, "Lunch"));
+                                      380, 35.0, 12.0, 22.0, "Lunch")
+                                      .withMicronutrients("fiber=4, vitamin_a=400, vitamin_c=25, vitamin_k=120, "
+                                                          + "calcium=80, iron=2.2, magnesium=60, potassium=650, "
+                                                          + "sodium=420, zinc=1.8"));
             nonVegDiet.addMeal(new Meal("Salmon Bowl", "Grilled salmon with quinoa and steamed broccoli", 
-                                      450, 32.0, 35.0, 20.0, "Lunch"));
+                                      450, 32.0, 35.0, 20.0, "Lunch")
+                                      .withMicronutrients("fiber=6, vitamin_c=80, vitamin_d=11, vitamin_b12=4.5, "
+                                                          + "calcium=80, iron=3.0, magnesium=130, potassium=950, "
+                                                          + "sodium=180, zinc=2.5, selenium=45, omega_3=1.8"));
             nonVegDiet.addMeal(new Meal("Turkey Club Sandwich", "Lean turkey with lettuce, tomato on whole grain bread", 
-                                      420, 28.0, 42.0, 16.0, "Lunch"));
+                                      420, 28.0, 42.0, 16.0, "Lunch")
+                                      .withMicronutrients("fiber=6, vitamin_a=60, vitamin_c=8, calcium=90, iron=3.0, "
+                                                          + "magnesium=60, potassium=480, sodium=1150, zinc=2.5, "
+                                                          + "added_sugar=4"));
             
             // Dinner meals
             nonVegDiet.addMeal(new Meal("Beef Stir Fry", "Lean beef with mixed vegetables and brown rice", 
-                                      480, 30.0, 45.0, 18.0, "Dinner"));
+                                      480, 30.0, 45.0, 18.0, "Dinner")
+                                      .withMicronutrients("fiber=6, vitamin_a=250, vitamin_c=60, vitamin_b12=2.2, "
+                                                          + "calcium=60, iron=4.0, magnesium=110, potassium=750, "
+                                                          + "sodium=850, zinc=6.5, added_sugar=6"));
             nonVegDiet.addMeal(new Meal("Baked Cod", "Herb-crusted cod with roasted vegetables", 
-                                      320, 28.0, 15.0, 12.0, "Dinner"));
+                                      320, 28.0, 15.0, 12.0, "Dinner")
+                                      .withMicronutrients("fiber=5, vitamin_a=300, vitamin_c=35, vitamin_d=1.5, "
+                                                          + "vitamin_b12=1.5, calcium=60, iron=1.5, magnesium=70, "
+                                                          + "potassium=850, sodium=350, zinc=1.0, selenium=40"));
             nonVegDiet.addMeal(new Meal("Chicken Curry", "Tender chicken in coconut curry sauce with rice", 
-                                      420, 32.0, 38.0, 16.0, "Dinner"));
+                                      420, 32.0, 38.0, 16.0, "Dinner")
+                                      .withMicronutrients("fiber=3, vitamin_a=100, vitamin_c=10, calcium=50, "
+                                                          + "iron=2.5, magnesium=60, potassium=550, sodium=780, "
+                                                          + "zinc=2.2, added_sugar=3"));
             
             // Snacks
             nonVegDiet.addMeal(new Meal("Protein Bar", "Whey protein bar with nuts and dried fruits", 
-                                      200, 20.0, 18.0, 8.0, "Snack"));
+                                      200, 20.0, 18.0, 8.0, "Snack")
+                                      .withMicronutrients("fiber=3, calcium=150, iron=1.8, magnesium=60, "
+                                                          + "potassium=200, sodium=180, zinc=2.0, added_sugar=12"));
             nonVegDiet.addMeal(new Meal("Hard-Boiled Eggs", "Two hard-boiled eggs with a pinch of salt", 
-                                      140, 12.0, 1.0, 10.0, "Snack"));
+                                      140, 12.0, 1.0, 10.0, "Snack")
+                                      .withMicronutrients("vitamin_a=160, vitamin_d=2.2, vitamin_b12=1.1, "
+                                                          + "choline=290, calcium=50, iron=1.2, magnesium=10, "
+                                                          + "potassium=130, sodium=280, zinc=1.1, selenium=30"));
             
             return nonVegDiet;
         }
@@ -134,33 +228,67 @@ public class DietPlan {
             
             // Breakfast meals
             balancedDiet.addMeal(new Meal("Whole Grain Pancakes", "Whole wheat pancakes with Greek yogurt and berries", 
-                                        320, 14.0, 48.0, 10.0, "Breakfast"));
+                                        320, 14.0, 48.0, 10.0, "Breakfast")
+                                        .withMicronutrients("fiber=5, vitamin_c=10, calcium=200, iron=2.5, "
+                                                            + "magnesium=70, potassium=350, sodium=480, zinc=1.5, "
+                                                            + "added_sugar=6"));
             balancedDiet.addMeal(new Meal("Egg and Veggie Omelet", "Two-egg omelet with spinach, mushrooms, and cheese", 
-                                        290, 18.0, 8.0, 20.0, "Breakfast"));
+                                        290, 18.0, 8.0, 20.0, "Breakfast")
+                                        .withMicronutrients("fiber=2, vitamin_a=450, vitamin_c=10, vitamin_d=2, "
+                                                            + "vitamin_k=150, choline=300, calcium=200, iron=2.8, "
+                                                            + "magnesium=50, potassium=450, sodium=420, zinc=2.0"));
             balancedDiet.addMeal(new Meal("Smoothie Bowl", "Acai smoothie with granola, nuts, and fresh fruits", 
-                                        340, 12.0, 52.0, 12.0, "Breakfast"));
+                                        340, 12.0, 52.0, 12.0, "Breakfast")
+                                        .withMicronutrients("fiber=9, vitamin_a=60, vitamin_c=40, calcium=120, "
+                                                            + "iron=2.0, magnesium=80, potassium=600, sodium=60, "
+                                                            + "zinc=1.4, added_sugar=10"));
             
             // Lunch meals
             balancedDiet.addMeal(new Meal("Mediterranean Bowl", "Quinoa with grilled chicken, vegetables, and feta cheese", 
-                                        430, 28.0, 42.0, 18.0, "Lunch"));
+                                        430, 28.0, 42.0, 18.0, "Lunch")
+                                        .withMicronutrients("fiber=6, vitamin_a=200, vitamin_c=30, folate=120, "
+                                                            + "calcium=200, iron=3.0, magnesium=120, potassium=650, "
+                                                            + "sodium=650, zinc=2.8"));
             balancedDiet.addMeal(new Meal("Tuna Salad Wrap", "Tuna salad with vegetables in a spinach wrap", 
-                                        360, 24.0, 28.0, 16.0, "Lunch"));
+                                        360, 24.0, 28.0, 16.0, "Lunch")
+                                        .withMicronutrients("fiber=4, vitamin_a=350, vitamin_c=10, vitamin_d=1.5, "
+                                                            + "vitamin_b12=2.2, calcium=70, iron=2.5, magnesium=50, "
+                                                            + "potassium=400, sodium=780, zinc=1.2, selenium=60"));
             balancedDiet.addMeal(new Meal("Vegetable Soup with Bread", "Mixed vegetable soup with whole grain bread", 
-                                        280, 12.0, 48.0, 8.0, "Lunch"));
+                                        280, 12.0, 48.0, 8.0, "Lunch")
+                                        .withMicronutrients("fiber=8, vitamin_a=500, vitamin_c=25, calcium=80, "
+                                                            + "iron=3.0, magnesium=60, potassium=650, sodium=900, "
+                                                            + "zinc=1.4"));
             
             // Dinner meals
             balancedDiet.addMeal(new Meal("Grilled Fish with Quinoa", "Grilled tilapia with quinoa and roasted asparagus", 
-                                        380, 30.0, 32.0, 14.0, "Dinner"));
+                                        380, 30.0, 32.0, 14.0, "Dinner")
+                                        .withMicronutrients("fiber=6, vitamin_a=80, vitamin_c=10, vitamin_d=3.5, "
+                                                            + "vitamin_b12=1.8, folate=130, calcium=50, iron=3.0, "
+                                                            + "magnesium=120, potassium=700, sodium=250, zinc=2.2, "
+                                                            + "selenium=50"));
             balancedDiet.addMeal(new Meal("Chicken and Rice Bowl", "Teriyaki chicken with brown rice and steamed vegetables", 
-                                        410, 28.0, 48.0, 12.0, "Dinner"));
+                                        410, 28.0, 48.0, 12.0, "Dinner")
+                                        .withMicronutrients("fiber=5, vitamin_a=300, vitamin_c=30, calcium=50, "
+                                                            + "iron=2.0, magnesium=100, potassium=550, sodium=900, "
+                                                            + "zinc=2.0, added_sugar=9"));
             balancedDiet.addMeal(new Meal("Pasta Primavera", "Whole wheat pasta with seasonal vegetables and olive oil", 
-                                        350, 14.0, 58.0, 10.0, "Dinner"));
+                                        350, 14.0, 58.0, 10.0, "Dinner")
+                                        .withMicronutrients("fiber=9, vitamin_a=350, vitamin_c=45, vitamin_e=3, "
+                                                            + "calcium=60, iron=3.0, magnesium=110, potassium=500, "
+                                                            + "sodium=280, zinc=2.2"));
             
             // Snacks
             balancedDiet.addMeal(new Meal("Greek Yogurt with Honey", "Plain Greek yogurt drizzled with honey and nuts", 
-                                        150, 12.0, 15.0, 6.0, "Snack"));
+                                        150, 12.0, 15.0, 6.0, "Snack")
+                                        .withMicronutrients("fiber=1, vitamin_b12=0.8, calcium=200, iron=0.4, "
+                                                            + "magnesium=30, potassium=250, sodium=60, zinc=1.0, "
+                                                            + "added_sugar=8"));
             balancedDiet.addMeal(new Meal("Vegetable Sticks with Hummus", "Carrot and celery sticks with hummus dip", 
-                                        120, 5.0, 12.0, 6.0, "Snack"));
+                                        120, 5.0, 12.0, 6.0, "Snack")
+                                        .withMicronutrients("fiber=5, vitamin_a=600, vitamin_c=5, folate=50, "
+                                                            + "calcium=50, iron=1.2, magnesium=40, potassium=350, "
+                                                            + "sodium=250, zinc=0.8"));
             
             return balancedDiet;
         }
@@ -0,0 +1,109 @@
+package com.dietmaker;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Command-line export of every user's weekly plan from a running app or cluster
+ *
+ *   java -jar dietmaker.jar export --nodes=host1:8080,host2:8080 --format=csv --out=plans.csv
+ *
+ * Each node streams the users it is primary for and the responses are appended to one file
+ * in turn. Every node is tried; the command then fails, naming them, if any node could not
+ * be exported or the nodes report cluster members missing from the list, since the file
+ * lacks those members' users. The HTTP client writes each body to the file as it arrives
+ * and only asks for more data once a chunk is written, so a slow disk slows the transfer
+ * down instead of filling memory.
+ *
+ * Options: nodes (default localhost:8080), format csv or jsonl (default csv),
+ * out (default plans.&lt;format&gt;).
+ */
+public class ExportCli {
+    public static final String COMMAND = "export";
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        List<String> nodes = List.of("localhost:8080");
+        PlanExporter.Format format = PlanExporter.Format.CSV;
+        Path out = null;
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            String value = arg.substring(eq + 1);
+            switch (arg.substring(2, eq)) {
+                case "nodes" -> nodes = ClusterConfig.parseMembers(value);
+                case "format" -> format = PlanExporter.Format.fromExtension(value);
+                case "out" -> out = Paths.get(value);
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (out == null) {
+            out = Paths.get("plans." + format.getExtension());
+        }
+
+        long start = System.nanoTime();
+        export(HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(Duration.ofSeconds(5)).build(),
+               nodes, format, out);
+        System.out.printf("Exported %d bytes from %d node(s) to %s in %d ms%n", Files.size(out), nodes.size(), out,
+                          (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Fetch every node's export into one file, then fail if any node failed or the nodes
+     * reported cluster members that were not asked; the file then lacks those users
+     */
+    static void export(HttpClient client, List<String> nodes, PlanExporter.Format format, Path out)
+            throws IOException, InterruptedException {
+        Files.write(out, new byte[0]);
+        List<String> failures = new ArrayList<>();
+        Set<String> members = new TreeSet<>();
+        for (String node : nodes) {
+            // The CSV header goes in front of the first body that arrives
+            boolean header = Files.size(out) == 0;
+            URI uri = URI.create("http://" + node + "/export/plans." + format.getExtension() + "?header=" + header);
+            try {
+                HttpResponse<Path> response = client.send(HttpRequest.newBuilder(uri).GET().build(), info ->
+                        info.statusCode() == 200
+                                ? HttpResponse.BodySubscribers.ofFile(out, StandardOpenOption.APPEND)
+                                : HttpResponse.BodySubscribers.replacing(null));
+                if (response.statusCode() != 200) {
+                    failures.add(node + " (status " + response.statusCode() + ")");
+                    continue;
+                }
+                response.headers().firstValue(PlanExporter.MEMBERS_HEADER)
+                        .ifPresent(value -> members.addAll(ClusterConfig.parseMembers(value)));
+            } catch (IOException e) {
+                failures.add(node + " (" + e + ")");
+            }
+        }
+        // A one-member ring may know itself by another name than the one it was reached by
+        if (members.size() > 1) {
+            members.removeAll(nodes);
+        } else {
+            members.clear();
+        }
+        if (!failures.isEmpty() || !members.isEmpty()) {
+            StringBuilder message = new StringBuilder("Export in ").append(out).append(" is incomplete");
+            if (!failures.isEmpty()) {
+                message.append("; failed nodes: ").append(String.join(", ", failures));
+            }
+            if (!members.isEmpty()) {
+                message.append("; members not in --nodes: ").append(String.join(", ", members));
+            }
+            throw new IOException(message.toString());
+        }
+    }
+}
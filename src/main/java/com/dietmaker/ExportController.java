@@ -0,0 +1,48 @@
+package com.dietmaker;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.channels.Channels;
+
+/**
+ * Bulk export of users' weekly plans, streamed to the client as it is produced
+ *
+ * The export runs on an async thread and writes straight to the response; a slow client
+ * blocks that thread rather than making the server hold the export in memory. Exports are
+ * admitted through their own small bulkhead (see {@link AdmissionControl}).
+ */
+@RestController
+public class ExportController {
+
+    private final PlanExporter exporter;
+
+    public ExportController(PlanExporter exporter) {
+        this.exporter = exporter;
+    }
+
+    /**
+     * /export/plans.csv or /export/plans.jsonl; header=false leaves out the CSV header line,
+     * for appending exports from several cluster nodes into one file
+     */
+    @GetMapping("/export/plans.{extension}")
+    public ResponseEntity<StreamingResponseBody> exportPlans(@PathVariable String extension,
+                                                             @RequestParam(defaultValue = "true") boolean header) {
+        PlanExporter.Format format = PlanExporter.Format.fromExtension(extension);
+        StreamingResponseBody body = output -> {
+            ExportWriter writer = new ExportWriter(Channels.newChannel(output));
+            exporter.export(writer, format, header);
+            writer.finish(); // the servlet container closes the stream
+        };
+        return ResponseEntity.ok()
+                .contentType(format.getMediaType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"plans." + format.getExtension() + "\"")
+                .header(PlanExporter.MEMBERS_HEADER, String.join(",", exporter.getMembers()))
+                .body(body);
+    }
+}
@@ -0,0 +1,156 @@
+package com.dietmaker;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Buffered UTF-8 text writer over a channel, for exports of any size
+ *
+ * Appended text collects in a small char buffer and is encoded from there into one fixed
+ * direct byte buffer that is written out whenever it fills, so memory stays constant however
+ * much is exported. The char buffer persists between appends, so a surrogate pair appended one
+ * char at a time is still encoded as one character. Writes to a blocking channel (a socket
+ * or a file) block while the other side is slow, which is the backpressure: a slow client
+ * slows the export down instead of making the server buffer it.
+ *
+ * Not thread-safe.
+ */
+public class ExportWriter implements Flushable, Closeable {
+    public static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_PENDING_CHARS = 8 * 1024;
+
+    private final WritableByteChannel channel;
+    private final CharBuffer pending; // appended, not yet encoded; may end with half a surrogate pair
+    private final ByteBuffer buffer;
+    private final CharsetEncoder encoder;
+    private long bytesWritten;
+    private boolean finished;
+
+    public ExportWriter(WritableByteChannel channel) {
+        this(channel, DEFAULT_BUFFER_SIZE);
+    }
+
+    public ExportWriter(WritableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.pending = CharBuffer.allocate(Math.max(2, Math.min(bufferSize, MAX_PENDING_CHARS)));
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    public ExportWriter append(CharSequence text) throws IOException {
+        checkNotFinished();
+        int length = text.length();
+        int offset = 0;
+        while (offset < length) {
+            if (!pending.hasRemaining()) {
+                encodePending(false);
+            }
+            int end = offset + Math.min(pending.remaining(), length - offset);
+            pending.append(text, offset, end);
+            offset = end;
+        }
+        return this;
+    }
+
+    public ExportWriter append(char c) throws IOException {
+        checkNotFinished();
+        if (!pending.hasRemaining()) {
+            encodePending(false);
+        }
+        pending.put(c);
+        return this;
+    }
+
+    public ExportWriter append(long value) throws IOException {
+        return append(Long.toString(value));
+    }
+
+    /**
+     * Bytes handed to the channel so far
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    /**
+     * Write out everything appended so far, except half a surrogate pair still waiting for
+     * the other half
+     */
+    @Override
+    public void flush() throws IOException {
+        if (!finished) {
+            encodePending(false);
+        }
+        drain();
+    }
+
+    /**
+     * End the text and write out everything, without closing the channel; a trailing half
+     * surrogate pair is written as a replacement character. Nothing can be appended after.
+     * For channels owned by someone else, such as a servlet response stream.
+     */
+    public void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        encodePending(true);
+        while (encoder.flush(buffer).isOverflow()) {
+            drain();
+        }
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void checkNotFinished() {
+        if (finished) {
+            throw new IllegalStateException("Export writer is finished");
+        }
+    }
+
+    /**
+     * Encode the pending chars into the byte buffer, draining it as it fills. Unless this is
+     * the end of the input, a trailing high surrogate stays pending for its pair.
+     */
+    private void encodePending(boolean endOfInput) throws IOException {
+        pending.flip();
+        while (true) {
+            CoderResult result = encoder.encode(pending, buffer, endOfInput);
+            if (result.isUnderflow()) {
+                break;
+            }
+            if (result.isOverflow()) {
+                drain();
+            } else {
+                result.throwException();
+            }
+        }
+        pending.compact();
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            bytesWritten += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,111 @@
+package com.dietmaker;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Immutable consistent-hash ring mapping keys (user names) to cluster nodes
+ *
+ * Every node owns {@code virtualNodes} tokens spread around a 64-bit ring; a key belongs
+ * to the first token clockwise from its hash, and its replicas are the next distinct
+ * nodes after that. Adding or removing a node only moves the keys adjacent to that
+ * node's tokens, roughly 1/N of all keys.
+ */
+public final class HashRing {
+    public static final int DEFAULT_VIRTUAL_NODES = 128;
+
+    private final NavigableMap<Long, String> tokens;
+    private final Set<String> nodes;
+    private final int virtualNodes;
+
+    public HashRing(Collection<String> nodes) {
+        this(nodes, DEFAULT_VIRTUAL_NODES);
+    }
+
+    public HashRing(Collection<String> nodes, int virtualNodes) {
+        this.virtualNodes = virtualNodes;
+        this.nodes = Set.copyOf(new TreeSet<>(nodes));
+        TreeMap<Long, String> ring = new TreeMap<>();
+        for (String node : this.nodes) {
+            for (int i = 0; i < virtualNodes; i++) {
+                // On the rare token collision the smaller node id wins, so every ring agrees
+                ring.merge(hash(node + "#" + i), node, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+            }
+        }
+        this.tokens = ring;
+    }
+
+    public Set<String> getNodes() {
+        return nodes;
+    }
+
+    public HashRing withNode(String node) {
+        List<String> next = new ArrayList<>(nodes);
+        next.add(node);
+        return new HashRing(next, virtualNodes);
+    }
+
+    public HashRing withoutNode(String node) {
+        List<String> next = new ArrayList<>(nodes);
+        next.remove(node);
+        return new HashRing(next, virtualNodes);
+    }
+
+    /**
+     * The nodes holding {@code key}, primary first; fewer than {@code replicationFactor}
+     * if the cluster is smaller than that
+     */
+    public List<String> replicasFor(String key, int replicationFactor) {
+        int wanted = Math.min(replicationFactor, nodes.size());
+        List<String> replicas = new ArrayList<>(wanted);
+        if (wanted == 0) {
+            return replicas;
+        }
+        long h = hash(key);
+        for (Map.Entry<Long, String> token : tokens.tailMap(h, true).entrySet()) {
+            if (addReplica(replicas, token.getValue(), wanted)) {
+                return replicas;
+            }
+        }
+        for (Map.Entry<Long, String> token : tokens.headMap(h, false).entrySet()) {
+            if (addReplica(replicas, token.getValue(), wanted)) {
+                return replicas;
+            }
+        }
+        return replicas;
+    }
+
+    public String primaryFor(String key) {
+        List<String> replicas = replicasFor(key, 1);
+        return replicas.isEmpty() ? null : replicas.get(0);
+    }
+
+    private static boolean addReplica(List<String> replicas, String node, int wanted) {
+        if (!replicas.contains(node)) {
+            replicas.add(node);
+        }
+        return replicas.size() == wanted;
+    }
+
+    /**
+     * 64-bit FNV-1a over the UTF-8 bytes, finished with the SplitMix64 mixer so that
+     * similar strings ("node#1", "node#2") land far apart on the ring
+     */
+    static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
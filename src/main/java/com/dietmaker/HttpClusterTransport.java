@@ -0,0 +1,91 @@
+package com.dietmaker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Transport for nodes running as separate processes
+ *
+ * Node ids are {@code host:port} addresses; calls go to the internal endpoints served by
+ * {@link ClusterController}, authenticated with the shared cluster secret (see
+ * {@link ClusterConfig}). Connection failures, timeouts and any answer other than 2xx or a
+ * 404 for a missing user are reported as IOException, so {@link ClusterNode} logs the peer
+ * and falls over to the next replica; a peer rejecting the secret is no different from a
+ * peer that is down.
+ */
+public class HttpClusterTransport implements ClusterTransport {
+    public static final String SECRET_HEADER = "X-Cluster-Secret";
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(2);
+
+    private final HttpClient client;
+    private final ObjectMapper mapper;
+    private final String secret;
+
+    public HttpClusterTransport(ObjectMapper mapper, String secret) {
+        this(HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build(), mapper, secret);
+    }
+
+    public HttpClusterTransport(HttpClient client, ObjectMapper mapper, String secret) {
+        this.client = client;
+        this.mapper = mapper;
+        this.secret = secret;
+    }
+
+    @Override
+    public UserRecord fetch(String node, String name) throws IOException {
+        HttpResponse<byte[]> response = send(HttpRequest.newBuilder(userUri(node, name, null)).GET());
+        if (response.statusCode() == 404) {
+            return null;
+        }
+        return mapper.readValue(response.body(), UserRecord.class);
+    }
+
+    @Override
+    public UserRecord putAsPrimary(String node, UserRecord record) throws IOException {
+        HttpResponse<byte[]> response = send(put(node, record, "primary"));
+        return mapper.readValue(response.body(), UserRecord.class);
+    }
+
+    @Override
+    public UserRecord replicate(String node, UserRecord record) throws IOException {
+        HttpResponse<byte[]> response = send(put(node, record, "replica"));
+        return mapper.readValue(response.body(), UserRecord.class);
+    }
+
+    private HttpRequest.Builder put(String node, UserRecord record, String mode) throws IOException {
+        return HttpRequest.newBuilder(userUri(node, record.name(), mode))
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(mapper.writeValueAsBytes(record)));
+    }
+
+    private static URI userUri(String node, String name, String mode) {
+        String path = "http://" + node + "/cluster/users/" + URLEncoder.encode(name, StandardCharsets.UTF_8).replace("+", "%20");
+        return URI.create(mode == null ? path : path + "?mode=" + mode);
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest.Builder request) throws IOException {
+        HttpResponse<byte[]> response;
+        try {
+            if (secret != null && !secret.isBlank()) {
+                request.header(SECRET_HEADER, secret);
+            }
+            response = client.send(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while calling " + request.build().uri());
+        }
+        if (response.statusCode() / 100 != 2 && response.statusCode() != 404) {
+            throw new IOException("Node answered " + response.statusCode() + " for " + response.uri());
+        }
+        return response;
+    }
+}
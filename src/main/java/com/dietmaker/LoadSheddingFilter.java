@@ -0,0 +1,87 @@
+package com.dietmaker;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Rejects requests with 503 and Retry-After when their endpoint class is at its limit
+ *
+ * Runs first in the filter chain so a shed request costs one counter check and a few
+ * header bytes, never a controller call or template render.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class LoadSheddingFilter extends OncePerRequestFilter {
+
+    private final AdmissionControl admissionControl;
+
+    public LoadSheddingFilter(AdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        AdaptiveLimit limit = admissionControl.limitFor(request);
+        if (limit == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!limit.tryAcquire()) {
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(admissionControl.getRetryAfterSeconds()));
+            response.setContentType("text/plain");
+            response.getWriter().write("Server busy, retry later\n");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean async = false;
+        try {
+            chain.doFilter(request, response);
+            if (request.isAsyncStarted()) {
+                // A streamed response keeps its slot until it has been fully written
+                request.getAsyncContext().addListener(new ReleaseOnComplete(limit, start));
+                async = true;
+            }
+        } finally {
+            if (!async) {
+                limit.release(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private record ReleaseOnComplete(AdaptiveLimit limit, long start) implements AsyncListener {
+        @Override
+        public void onComplete(AsyncEvent event) {
+            limit.release(System.nanoTime() - start);
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // onComplete follows once the container has completed the request
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // onComplete follows once the container has completed the request
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            // A new async cycle drops registered listeners; stay registered until the end
+            event.getAsyncContext().addListener(this);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.dietmaker;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Transport for several {@link ClusterNode}s living in one JVM
+ *
+ * Calls go straight to the target node's methods. Removing a node from the transport
+ * without telling the others makes it unreachable, which is how tests simulate a crash.
+ */
+public class LocalClusterTransport implements ClusterTransport {
+
+    private final Map<String, ClusterNode> nodes = new ConcurrentHashMap<>();
+
+    /**
+     * Create and register a node on this transport
+     */
+    public ClusterNode start(String id, Collection<String> members, int replicationFactor) {
+        ClusterNode node = new ClusterNode(id, members, replicationFactor, this);
+        nodes.put(id, node);
+        return node;
+    }
+
+    /**
+     * Make a node unreachable without any handover
+     */
+    public void kill(String id) {
+        nodes.remove(id);
+    }
+
+    /**
+     * Make a killed node reachable again with the data it had, as after a network partition
+     */
+    public void revive(ClusterNode node) {
+        nodes.put(node.getId(), node);
+    }
+
+    public ClusterNode getNode(String id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * Announce a new membership to every given node in turn, the way a coordinator would
+     * broadcast the change; include a leaving node so it hands its data over
+     */
+    public void announce(Collection<ClusterNode> participants, List<String> members) {
+        for (ClusterNode node : participants) {
+            node.updateMembers(members);
+        }
+    }
+
+    @Override
+    public UserRecord fetch(String node, String name) throws IOException {
+        return target(node).getLocal(name);
+    }
+
+    @Override
+    public UserRecord putAsPrimary(String node, UserRecord record) throws IOException {
+        return target(node).putAsPrimary(record);
+    }
+
+    @Override
+    public UserRecord replicate(String node, UserRecord record) throws IOException {
+        return target(node).acceptReplica(record);
+    }
+
+    private ClusterNode target(String node) throws IOException {
+        ClusterNode target = nodes.get(node);
+        if (target == null) {
+            throw new IOException("Node " + node + " is unreachable");
+        }
+        return target;
+    }
+}
@@ -3,6 +3,8 @@ package com.dietmaker;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
+import java.util.Arrays;
+
 /**
  * Spring Boot main application class for the Diet Maker web application
  */
@@ -10,9 +12,13 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 public class Main {
 
     /**
-     * Application entry point
+     * Application entry point; "export ..." runs the {@link ExportCli} instead of the server
      */
-    public static void main(String[] args) {
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && ExportCli.COMMAND.equals(args[0])) {
+            ExportCli.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
         SpringApplication.run(Main.class, args);
     }
 }
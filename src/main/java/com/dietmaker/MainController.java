@@ -5,8 +5,6 @@ import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 
-import java.util.List;
-
 /**
  * Spring MVC Controller for the Diet Maker web application
  * Handles HTTP requests and renders Thymeleaf templates
@@ -14,6 +12,14 @@ import java.util.List;
 @Controller
 public class MainController {
 
+    private final CatalogService catalogService;
+    private final TenantCatalogService tenantCatalogService;
+
+    public MainController(CatalogService catalogService, TenantCatalogService tenantCatalogService) {
+        this.catalogService = catalogService;
+        this.tenantCatalogService = tenantCatalogService;
+    }
+
     /**
      * Home page - displays diet selection options
      */
@@ -27,25 +33,31 @@ public class MainController {
      */
     @GetMapping("/diet/{type}")
     public String getDiet(@PathVariable String type, Model model) {
-        DietPlan dietPlan;
-        
-        switch(type.toLowerCase()) {
-            case "vegetarian":
-                dietPlan = DietPlan.DietPlanFactory.createVegetarianDiet();
-                break;
-            case "non-vegetarian":
-                dietPlan = DietPlan.DietPlanFactory.createNonVegetarianDiet();
-                break;
-            case "balanced":
-                dietPlan = DietPlan.DietPlanFactory.createBalancedDiet();
-                break;
-            default:
-                return "redirect:/";
+        DietPlan dietPlan = catalogService.current().getPlan(type);
+        if (dietPlan == null) {
+            return "redirect:/";
         }
         
+        return showDiet(dietPlan, type, "/diet", model);
+    }
+
+    /**
+     * Display a clinic's version of a diet plan (base plan plus the clinic's changes)
+     */
+    @GetMapping("/clinic/{tenant}/diet/{type}")
+    public String getTenantDiet(@PathVariable String tenant, @PathVariable String type, Model model) {
+        DietPlan dietPlan = tenantCatalogService.getPlan(tenant, type);
+        if (dietPlan == null) {
+            return "redirect:/";
+        }
+        return showDiet(dietPlan, type, "/clinic/" + tenant + "/diet", model);
+    }
+
+    private String showDiet(DietPlan dietPlan, String type, String dietBasePath, Model model) {
         // Add diet plan and meals to model for Thymeleaf template
         model.addAttribute("dietPlan", dietPlan);
         model.addAttribute("dietType", type);
+        model.addAttribute("dietBasePath", dietBasePath);
         model.addAttribute("breakfastMeals", dietPlan.getMealsByType("Breakfast"));
         model.addAttribute("lunchMeals", dietPlan.getMealsByType("Lunch"));
         model.addAttribute("dinnerMeals", dietPlan.getMealsByType("Dinner"));
@@ -1,5 +1,7 @@
 package com.dietmaker;
 
+import java.util.Arrays;
+
 /**
  * Represents a meal with nutritional information
  */
@@ -11,6 +13,7 @@ public class Meal {
     private double carbs;      // in grams
     private double fats;       // in grams
     private String mealType;   // breakfast, lunch, dinner, snack
+    private float[] micronutrients; // indexed by Micronutrient ordinal, null until any is set
 
     public Meal(String name, String description, int calories, double protein, double carbs, double fats, String mealType) {
         this.name = name;
@@ -51,6 +54,29 @@ public class Meal {
         return mealType;
     }
 
+    /**
+     * Amount of a micronutrient in this meal, in the nutrient's unit; 0 if unknown
+     */
+    public double getMicronutrient(Micronutrient nutrient) {
+        return micronutrients == null ? 0 : micronutrients[nutrient.ordinal()];
+    }
+
+    public boolean hasMicronutrients() {
+        return micronutrients != null;
+    }
+
+    /**
+     * Copy all micronutrient amounts into {@code target} starting at {@code offset}
+     * (zeros if unknown). Used to pack many meals into one array for scoring.
+     */
+    public void copyMicronutrients(float[] target, int offset) {
+        if (micronutrients == null) {
+            Arrays.fill(target, offset, offset + Micronutrient.COUNT, 0f);
+        } else {
+            System.arraycopy(micronutrients, 0, target, offset, Micronutrient.COUNT);
+        }
+    }
+
     // Setters
     public void setName(String name) {
         this.name = name;
@@ -80,6 +106,44 @@ public class Meal {
         this.mealType = mealType;
     }
 
+    /**
+     * Set micronutrient amounts given as "fiber=8, vitamin_c=30" (names as in
+     * {@link Micronutrient}, in any case; amounts in the nutrient's unit)
+     *
+     * @return this meal
+     * @throws IllegalArgumentException for an unknown name or a malformed amount
+     */
+    public Meal withMicronutrients(String amounts) {
+        for (String entry : amounts.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            int eq = entry.indexOf('=');
+            if (eq < 0) {
+                throw new IllegalArgumentException("Expected nutrient=amount, got: " + entry.trim());
+            }
+            String nutrient = entry.substring(0, eq).trim();
+            try {
+                setMicronutrient(Micronutrient.valueOf(nutrient.toUpperCase()),
+                                 Double.parseDouble(entry.substring(eq + 1).trim()));
+            } catch (IllegalArgumentException e) { // also NumberFormatException
+                throw new IllegalArgumentException("Invalid micronutrient amount: " + entry.trim(), e);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Set a micronutrient amount. Stored as a float: well within the precision of food
+     * composition data, at half the size of a double.
+     */
+    public void setMicronutrient(Micronutrient nutrient, double amount) {
+        if (micronutrients == null) {
+            micronutrients = new float[Micronutrient.COUNT];
+        }
+        micronutrients[nutrient.ordinal()] = (float) amount;
+    }
+
     @Override
     public String toString() {
         return String.format("%s (%s) - %d cal, %.1fg protein, %.1fg carbs, %.1fg fats", 
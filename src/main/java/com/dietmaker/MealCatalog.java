@@ -0,0 +1,204 @@
+package com.dietmaker;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Immutable snapshot of all diet plans, keyed by diet type (e.g. "vegetarian")
+ *
+ * A snapshot is fully built before it is published by {@link CatalogService}, and its
+ * plans are shared by every request. Their meal lists are frozen when the snapshot is
+ * built; the {@link Meal} objects themselves must be treated as read-only too. Anything
+ * derived from the catalog should be cached with {@link #derived}: the cache lives on the
+ * snapshot, so publishing a new version drops it automatically.
+ *
+ * Plan files use the ".plan" extension; the file name is the diet type. Blank lines
+ * and lines starting with '#' are ignored, fields are separated by '|':
+ * <pre>
+ * plan | Vegetarian Diet | Plant-based meals rich in nutrients and fiber
+ * Breakfast | Oatmeal with Berries | Steel-cut oats topped with fresh blueberries | 320 | 12.0 | 58.0 | 8.0
+ * Lunch | Lentil Soup | Red lentil soup | 300 | 18 | 45 | 5 | fiber=11, iron=5.2, sodium=480
+ * </pre>
+ * The optional last field lists micronutrients per serving, named as in {@link Micronutrient}
+ * and in its units; {@link NutrientCoverageScorer} treats the ones left out as zero.
+ */
+public class MealCatalog {
+    public static final String PLAN_FILE_EXTENSION = ".plan";
+    private static final Set<String> MEAL_TYPES = Set.of("Breakfast", "Lunch", "Dinner", "Snack");
+
+    private final long version;
+    private final Map<String, DietPlan> plans;
+    private final Map<String, Object> derived;
+
+    MealCatalog(long version, Map<String, DietPlan> plans) {
+        this.version = version;
+        Map<String, DietPlan> frozen = new LinkedHashMap<>();
+        plans.forEach((type, plan) -> frozen.put(type, plan.freeze()));
+        this.plans = Collections.unmodifiableMap(frozen);
+        this.derived = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * The built-in plans from {@link DietPlan.DietPlanFactory}
+     */
+    public static MealCatalog defaults(long version) {
+        return new MealCatalog(version, defaultPlans());
+    }
+
+    /**
+     * The built-in plans, with any plan files in {@code directory} added or replacing
+     * the built-in plan of the same type
+     *
+     * @throws IOException if the directory can't be read
+     * @throws IllegalArgumentException if a plan file is malformed
+     */
+    public static MealCatalog load(Path directory, long version) throws IOException {
+        Map<String, DietPlan> plans = defaultPlans();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + PLAN_FILE_EXTENSION)) {
+            for (Path file : files) {
+                String fileName = file.getFileName().toString();
+                String type = fileName.substring(0, fileName.length() - PLAN_FILE_EXTENSION.length()).toLowerCase();
+                plans.put(type, parsePlan(fileName, Files.readAllLines(file, StandardCharsets.UTF_8)));
+            }
+        }
+        return new MealCatalog(version, plans);
+    }
+
+    static DietPlan parsePlan(String source, List<String> lines) {
+        DietPlan plan = null;
+        for (int i = 0; i < lines.size(); i++) {
+            String line = lines.get(i).trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] fields = line.split("\\|");
+            for (int f = 0; f < fields.length; f++) {
+                fields[f] = fields[f].trim();
+            }
+            String location = source + ":" + (i + 1);
+            if (fields[0].equals("plan")) {
+                if (plan != null || fields.length != 3) {
+                    throw new IllegalArgumentException(location + ": expected a single 'plan | name | description' line");
+                }
+                plan = new DietPlan(fields[1], fields[2]);
+                continue;
+            }
+            if (plan == null) {
+                throw new IllegalArgumentException(location + ": meals must come after the 'plan' line");
+            }
+            if ((fields.length != 7 && fields.length != 8) || !MEAL_TYPES.contains(fields[0])) {
+                throw new IllegalArgumentException(location
+                        + ": expected 'MealType | name | description | calories | protein | carbs | fats"
+                        + " [| micronutrients]'");
+            }
+            Meal meal;
+            try {
+                meal = new Meal(fields[1], fields[2], Integer.parseInt(fields[3]),
+                                Double.parseDouble(fields[4]), Double.parseDouble(fields[5]),
+                                Double.parseDouble(fields[6]), fields[0]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(location + ": invalid number (" + e.getMessage() + ")", e);
+            }
+            if (fields.length == 8) {
+                try {
+                    meal.withMicronutrients(fields[7]);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException(location + ": " + e.getMessage(), e);
+                }
+            }
+            plan.addMeal(meal);
+        }
+        if (plan == null) {
+            throw new IllegalArgumentException(source + ": missing 'plan | name | description' line");
+        }
+        return plan;
+    }
+
+    private static Map<String, DietPlan> defaultPlans() {
+        Map<String, DietPlan> plans = new LinkedHashMap<>();
+        plans.put("vegetarian", DietPlan.DietPlanFactory.createVegetarianDiet());
+        plans.put("non-vegetarian", DietPlan.DietPlanFactory.createNonVegetarianDiet());
+        plans.put("balanced", DietPlan.DietPlanFactory.createBalancedDiet());
+        return plans;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Plan for a diet type (case-insensitive), or null if there is none
+     */
+    public DietPlan getPlan(String type) {
+        return plans.get(type.toLowerCase());
+    }
+
+    public Map<String, DietPlan> getPlans() {
+        return plans;
+    }
+
+    /**
+     * A snapshot in which every meal named after one of {@code recipes} takes the recipe's
+     * current nutrition from {@code book}, keeping its description, meal type and
+     * micronutrients. Plans without such a meal are shared with this snapshot.
+     */
+    MealCatalog withRecipeNutrition(RecipeBook book, Set<String> recipes, long version) {
+        Map<String, DietPlan> next = new LinkedHashMap<>();
+        for (Map.Entry<String, DietPlan> entry : plans.entrySet()) {
+            DietPlan plan = entry.getValue();
+            boolean affected = false;
+            for (List<Meal> meals : plan.getMealsByType().values()) {
+                for (Meal meal : meals) {
+                    affected |= recipes.contains(meal.getName());
+                }
+            }
+            next.put(entry.getKey(), affected ? withRecipeNutrition(plan, book, recipes) : plan);
+        }
+        return new MealCatalog(version, next);
+    }
+
+    private static DietPlan withRecipeNutrition(DietPlan plan, RecipeBook book, Set<String> recipes) {
+        DietPlan rebuilt = new DietPlan(plan.getName(), plan.getDescription());
+        for (List<Meal> meals : plan.getMealsByType().values()) {
+            for (Meal meal : meals) {
+                if (!recipes.contains(meal.getName())) {
+                    rebuilt.addMeal(meal);
+                    continue;
+                }
+                Meal rolledUp = book.toMeal(meal.getName(), meal.getDescription(), meal.getMealType());
+                if (meal.hasMicronutrients()) {
+                    for (Micronutrient nutrient : Micronutrient.values()) {
+                        rolledUp.setMicronutrient(nutrient, meal.getMicronutrient(nutrient));
+                    }
+                }
+                rebuilt.addMeal(rolledUp);
+            }
+        }
+        return rebuilt;
+    }
+
+    /**
+     * Compute-once cache for values derived from this snapshot
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T derived(String key, Function<MealCatalog, T> compute) {
+        return (T) derived.computeIfAbsent(key, k -> compute.apply(this));
+    }
+
+    /**
+     * Drop a derived value whose inputs outside the catalog changed
+     */
+    public void evict(String key) {
+        derived.remove(key);
+    }
+}
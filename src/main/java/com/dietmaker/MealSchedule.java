@@ -0,0 +1,95 @@
+package com.dietmaker;
+
+import java.util.List;
+
+/**
+ * Immutable multi-day meal plan: one meal (or none) per meal type per day
+ *
+ * Changes return a new schedule and leave this one untouched, so a plan can be repaired
+ * by {@link PlanRepairer} while the previous version is still being shown.
+ */
+public final class MealSchedule {
+    public static final List<String> MEAL_TYPES = List.of("Breakfast", "Lunch", "Dinner", "Snack");
+
+    private final Meal[][] slots; // [day][index in MEAL_TYPES]
+
+    public MealSchedule(int days) {
+        if (days < 1) {
+            throw new IllegalArgumentException("A schedule needs at least one day");
+        }
+        this.slots = new Meal[days][MEAL_TYPES.size()];
+    }
+
+    private MealSchedule(Meal[][] slots) {
+        this.slots = slots;
+    }
+
+    /**
+     * A schedule that cycles through each meal type's meals in catalog order, one per day
+     */
+    public static MealSchedule rotating(DietPlan plan, int days) {
+        Meal[][] slots = new Meal[days][MEAL_TYPES.size()];
+        for (int type = 0; type < MEAL_TYPES.size(); type++) {
+            List<Meal> meals = plan.getMealsByType(MEAL_TYPES.get(type));
+            if (meals.isEmpty()) {
+                continue;
+            }
+            for (int day = 0; day < days; day++) {
+                slots[day][type] = meals.get(day % meals.size());
+            }
+        }
+        return new MealSchedule(slots);
+    }
+
+    /**
+     * Wrap slots built by the repairer; the array is not copied
+     */
+    static MealSchedule wrap(Meal[][] slots) {
+        return new MealSchedule(slots);
+    }
+
+    public int getDays() {
+        return slots.length;
+    }
+
+    public Meal getMeal(int day, String mealType) {
+        return slots[day][typeIndex(mealType)];
+    }
+
+    public MealSchedule withMeal(int day, String mealType, Meal meal) {
+        Meal[][] copy = copySlots();
+        copy[day][typeIndex(mealType)] = meal;
+        return new MealSchedule(copy);
+    }
+
+    public int getDailyCalories(int day) {
+        int total = 0;
+        for (Meal meal : slots[day]) {
+            if (meal != null) {
+                total += meal.getCalories();
+            }
+        }
+        return total;
+    }
+
+    Meal[][] copySlots() {
+        Meal[][] copy = new Meal[slots.length][];
+        for (int day = 0; day < slots.length; day++) {
+            copy[day] = slots[day].clone();
+        }
+        return copy;
+    }
+
+    Meal getMeal(int day, int typeIndex) {
+        return slots[day][typeIndex];
+    }
+
+    static int typeIndex(String mealType) {
+        for (int i = 0; i < MEAL_TYPES.size(); i++) {
+            if (MEAL_TYPES.get(i).equalsIgnoreCase(mealType)) {
+                return i;
+            }
+        }
+        throw new IllegalArgumentException("Unknown meal type: " + mealType);
+    }
+}
@@ -0,0 +1,99 @@
+package com.dietmaker;
+
+/**
+ * Micronutrients tracked per meal, with daily targets by age group
+ *
+ * Targets follow the US Dietary Reference Intakes for males (matching the simplified
+ * male BMR used by {@link User}) in four bands: under 14, 14 to 18, 19 to 50, and 51 and
+ * over. Teenagers need more calcium and phosphorus than adults, so they get their own band.
+ * Most are recommended allowances to reach; sodium and added sugar are limits to stay under.
+ */
+public enum Micronutrient {
+    FIBER("Fiber", "g", 31, 38, 38, 30),
+    VITAMIN_A("Vitamin A", "µg", 600, 900, 900, 900),
+    VITAMIN_C("Vitamin C", "mg", 45, 75, 90, 90),
+    VITAMIN_D("Vitamin D", "µg", 15, 15, 15, 20),
+    VITAMIN_E("Vitamin E", "mg", 11, 15, 15, 15),
+    VITAMIN_K("Vitamin K", "µg", 60, 75, 120, 120),
+    THIAMIN("Thiamin", "mg", 0.9, 1.2, 1.2, 1.2),
+    RIBOFLAVIN("Riboflavin", "mg", 0.9, 1.3, 1.3, 1.3),
+    NIACIN("Niacin", "mg", 12, 16, 16, 16),
+    VITAMIN_B6("Vitamin B6", "mg", 1.0, 1.3, 1.3, 1.7),
+    FOLATE("Folate", "µg", 300, 400, 400, 400),
+    VITAMIN_B12("Vitamin B12", "µg", 1.8, 2.4, 2.4, 2.4),
+    PANTOTHENIC_ACID("Pantothenic Acid", "mg", 4, 5, 5, 5),
+    BIOTIN("Biotin", "µg", 20, 25, 30, 30),
+    CHOLINE("Choline", "mg", 375, 550, 550, 550),
+    CALCIUM("Calcium", "mg", 1300, 1300, 1000, 1000),
+    IRON("Iron", "mg", 8, 11, 8, 8),
+    MAGNESIUM("Magnesium", "mg", 240, 410, 420, 420),
+    PHOSPHORUS("Phosphorus", "mg", 1250, 1250, 700, 700),
+    POTASSIUM("Potassium", "mg", 2500, 3000, 3400, 3400),
+    SODIUM("Sodium", "mg", 1800, 2300, 2300, 2300, true),
+    ZINC("Zinc", "mg", 8, 11, 11, 11),
+    COPPER("Copper", "mg", 0.7, 0.89, 0.9, 0.9),
+    MANGANESE("Manganese", "mg", 1.9, 2.2, 2.3, 2.3),
+    SELENIUM("Selenium", "µg", 40, 55, 55, 55),
+    IODINE("Iodine", "µg", 120, 150, 150, 150),
+    CHROMIUM("Chromium", "µg", 25, 35, 35, 30),
+    MOLYBDENUM("Molybdenum", "µg", 34, 43, 45, 45),
+    OMEGA_3("Omega-3 (ALA)", "g", 1.2, 1.6, 1.6, 1.6),
+    ADDED_SUGAR("Added Sugar", "g", 25, 25, 36, 36, true);
+
+    /** Number of tracked micronutrients; the length of per-meal micronutrient arrays */
+    public static final int COUNT = values().length;
+
+    private final String displayName;
+    private final String unit;
+    private final double childTarget;   // under 14
+    private final double teenTarget;    // 14 to 18
+    private final double adultTarget;   // 19 to 50
+    private final double olderTarget;   // 51 and over
+    private final boolean limit;
+
+    Micronutrient(String displayName, String unit, double childTarget, double teenTarget, double adultTarget,
+                  double olderTarget) {
+        this(displayName, unit, childTarget, teenTarget, adultTarget, olderTarget, false);
+    }
+
+    Micronutrient(String displayName, String unit, double childTarget, double teenTarget, double adultTarget,
+                  double olderTarget, boolean limit) {
+        this.displayName = displayName;
+        this.unit = unit;
+        this.childTarget = childTarget;
+        this.teenTarget = teenTarget;
+        this.adultTarget = adultTarget;
+        this.olderTarget = olderTarget;
+        this.limit = limit;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    public String getUnit() {
+        return unit;
+    }
+
+    /**
+     * True if the target is an upper limit (stay under) rather than an allowance (reach)
+     */
+    public boolean isLimit() {
+        return limit;
+    }
+
+    /**
+     * Daily target for a person of the given age
+     */
+    public double getDailyTarget(int age) {
+        if (age < 14) {
+            return childTarget;
+        } else if (age <= 18) {
+            return teenTarget;
+        } else if (age <= 50) {
+            return adultTarget;
+        } else {
+            return olderTarget;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.dietmaker;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Scores how well candidate plans cover a user's daily micronutrient targets
+ *
+ * The candidate meals are packed once into a single row-major float matrix (one row of
+ * {@link Micronutrient#COUNT} values per meal). A plan is an array of row indices; its
+ * score is the mean coverage over all micronutrients, where an allowance counts
+ * total / target capped at 1 and a limit counts 1 while under it and target / total once
+ * over. Scores are in [0, 1], so plan generators can use them directly as an objective.
+ *
+ * {@link #scoreAll} scores many plans stored back to back in one int array. The inner
+ * loops are plain float loops over contiguous memory, which the JIT vectorizes, and large
+ * batches are split across cores.
+ */
+public class NutrientCoverageScorer {
+    private static final int PLANS_PER_TASK = 1024;
+    private static final boolean[] LIMITS = limits(); // by ordinal; avoids values() copies in the hot loop
+
+    private final List<Meal> meals;
+    private final float[] matrix;
+
+    public NutrientCoverageScorer(List<Meal> candidates) {
+        this.meals = List.copyOf(candidates);
+        this.matrix = new float[meals.size() * Micronutrient.COUNT];
+        for (int i = 0; i < meals.size(); i++) {
+            meals.get(i).copyMicronutrients(matrix, i * Micronutrient.COUNT);
+        }
+    }
+
+    /**
+     * Daily targets for a user, indexed by Micronutrient ordinal
+     */
+    public static float[] dailyTargets(User user) {
+        int age = user.getAge();
+        float[] targets = new float[Micronutrient.COUNT];
+        for (Micronutrient nutrient : Micronutrient.values()) {
+            targets[nutrient.ordinal()] = (float) nutrient.getDailyTarget(age);
+        }
+        return targets;
+    }
+
+    public List<Meal> getMeals() {
+        return meals;
+    }
+
+    /**
+     * Coverage score in [0, 1] of a single plan, given as indices into the candidate meals
+     */
+    public double score(User user, int... plan) {
+        float[] totals = new float[Micronutrient.COUNT];
+        return score(plan, 0, plan.length, dailyTargets(user), totals);
+    }
+
+    /**
+     * Coverage per micronutrient for one plan, indexed by Micronutrient ordinal
+     */
+    public double[] coverage(User user, int... plan) {
+        float[] targets = dailyTargets(user);
+        float[] totals = new float[Micronutrient.COUNT];
+        accumulate(plan, 0, plan.length, totals);
+        double[] coverage = new double[Micronutrient.COUNT];
+        for (Micronutrient nutrient : Micronutrient.values()) {
+            int k = nutrient.ordinal();
+            coverage[k] = coverage(totals[k], targets[k], nutrient.isLimit());
+        }
+        return coverage;
+    }
+
+    /**
+     * Score many plans of {@code planLength} meals each, stored back to back in {@code plans}
+     *
+     * @return one score per plan
+     */
+    public double[] scoreAll(User user, int[] plans, int planLength) {
+        if (planLength <= 0 || plans.length % planLength != 0) {
+            throw new IllegalArgumentException("plans must hold a whole number of plans of length " + planLength);
+        }
+        float[] targets = dailyTargets(user);
+        int count = plans.length / planLength;
+        double[] scores = new double[count];
+        int tasks = (count + PLANS_PER_TASK - 1) / PLANS_PER_TASK;
+        IntStream.range(0, tasks).parallel().forEach(task -> {
+            float[] totals = new float[Micronutrient.COUNT];
+            int end = Math.min(count, (task + 1) * PLANS_PER_TASK);
+            for (int p = task * PLANS_PER_TASK; p < end; p++) {
+                scores[p] = score(plans, p * planLength, planLength, targets, totals);
+            }
+        });
+        return scores;
+    }
+
+    private double score(int[] plans, int offset, int length, float[] targets, float[] totals) {
+        accumulate(plans, offset, length, totals);
+        double sum = 0;
+        for (int k = 0; k < Micronutrient.COUNT; k++) {
+            sum += coverage(totals[k], targets[k], LIMITS[k]);
+        }
+        return sum / Micronutrient.COUNT;
+    }
+
+    /**
+     * Sum the micronutrient rows of the given meals into {@code totals}
+     */
+    private void accumulate(int[] plans, int offset, int length, float[] totals) {
+        int n = Micronutrient.COUNT;
+        Arrays.fill(totals, 0f);
+        for (int i = offset; i < offset + length; i++) {
+            int row = plans[i] * n;
+            for (int k = 0; k < n; k++) {
+                totals[k] += matrix[row + k];
+            }
+        }
+    }
+
+    private static boolean[] limits() {
+        boolean[] limits = new boolean[Micronutrient.COUNT];
+        for (Micronutrient nutrient : Micronutrient.values()) {
+            limits[nutrient.ordinal()] = nutrient.isLimit();
+        }
+        return limits;
+    }
+
+    private static double coverage(float total, float target, boolean limit) {
+        if (limit) {
+            return total <= target ? 1.0 : target / total;
+        }
+        return Math.min(1.0, total / target);
+    }
+}
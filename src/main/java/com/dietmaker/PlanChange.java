@@ -0,0 +1,25 @@
+package com.dietmaker;
+
+/**
+ * What changed since a {@link MealSchedule} was made, as understood by {@link PlanRepairer}
+ */
+public sealed interface PlanChange {
+
+    /**
+     * The user swapped out the meal in one slot and doesn't want it back there
+     */
+    record MealRemoved(int day, String mealType) implements PlanChange {
+    }
+
+    /**
+     * The daily calorie goal changed; the new goal is read from the user's profile
+     */
+    record GoalChanged() implements PlanChange {
+    }
+
+    /**
+     * The user reported a new allergy; meals mentioning it must go
+     */
+    record AllergyAdded(String allergy) implements PlanChange {
+    }
+}
@@ -0,0 +1,212 @@
+package com.dietmaker;
+
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Writes every user's weekly meal plan as CSV or JSON lines, one user at a time
+ *
+ * Users are read lazily from this node's share of the user store (the users it is primary
+ * for, so exporting from each cluster member covers everyone once) and each plan is
+ * formatted and written before the next is built. Memory use therefore doesn't grow with
+ * the number of users; the output side is an {@link ExportWriter}. A member that is down
+ * leaves its users out of every node's export, so responses name the members to collect from.
+ *
+ * A user's week cycles through the meals of their preferred plan (balanced if they have
+ * none) and is then repaired by {@link PlanRepairer} for their allergies and calorie goal.
+ */
+@Service
+public class PlanExporter {
+    public static final int DAYS = 7;
+    /** Response header listing the ring members, which together hold every user */
+    public static final String MEMBERS_HEADER = "X-Cluster-Members";
+    private static final String DEFAULT_PLAN = "balanced";
+
+    /**
+     * Output formats, with the file extension and media type they are served with
+     */
+    public enum Format {
+        CSV("csv", new MediaType("text", "csv")),
+        JSON_LINES("jsonl", new MediaType("application", "x-ndjson"));
+
+        private final String extension;
+        private final MediaType mediaType;
+
+        Format(String extension, MediaType mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public static Format fromExtension(String extension) {
+            for (Format format : values()) {
+                if (format.extension.equalsIgnoreCase(extension)) {
+                    return format;
+                }
+            }
+            throw new IllegalArgumentException("Unknown export format: " + extension);
+        }
+    }
+
+    private final ClusterNode node;
+    private final CatalogService catalogService;
+
+    public PlanExporter(ClusterNode node, CatalogService catalogService) {
+        this.node = node;
+        this.catalogService = catalogService;
+    }
+
+    /**
+     * The cluster members an export must be collected from to cover every user
+     */
+    public Set<String> getMembers() {
+        return node.getRing().getNodes();
+    }
+
+    /**
+     * Export all of this node's users
+     *
+     * @param header whether to start CSV output with a header line
+     * @return the number of users written
+     */
+    public long export(ExportWriter out, Format format, boolean header) throws IOException {
+        MealCatalog catalog = catalogService.current();
+        if (format == Format.CSV && header) {
+            out.append("user,day,meal_type,meal,calories,protein,carbs,fats\n");
+        }
+        long users = 0;
+        Iterator<UserRecord> records = node.primaryRecords().iterator();
+        while (records.hasNext()) {
+            UserRecord user = records.next();
+            MealSchedule week = weeklyPlan(catalog, user);
+            if (format == Format.CSV) {
+                writeCsv(out, user, week);
+            } else {
+                writeJsonLine(out, user, week);
+            }
+            users++;
+        }
+        return users;
+    }
+
+    /**
+     * The week exported for a user
+     */
+    MealSchedule weeklyPlan(MealCatalog catalog, UserRecord user) {
+        // Cached per diet type, the catalog key; display names need not be unique
+        String type = user.dietPreference() == null ? null : user.dietPreference().toLowerCase();
+        DietPlan plan = type == null ? null : catalog.getPlan(type);
+        if (plan == null) {
+            type = DEFAULT_PLAN;
+            plan = catalog.getPlan(DEFAULT_PLAN);
+        }
+        DietPlan basePlan = plan;
+        PlanRepairer repairer = catalog.derived("export-repairer:" + type, c -> new PlanRepairer(basePlan));
+        MealSchedule week = catalog.derived("export-week:" + type, c -> MealSchedule.rotating(basePlan, DAYS));
+
+        User.Profile profile = user.toUser().getProfile();
+        List<String> allergies = profile.getAllergies();
+        if (!allergies.isEmpty()) {
+            // The profile carries every allergy, so one repair clears meals matching any of them
+            week = repairer.repair(week, profile, new PlanChange.AllergyAdded(allergies.get(0))).schedule();
+        }
+        return repairer.repair(week, profile, new PlanChange.GoalChanged()).schedule();
+    }
+
+    private static void writeCsv(ExportWriter out, UserRecord user, MealSchedule week) throws IOException {
+        for (int day = 0; day < week.getDays(); day++) {
+            for (String mealType : MealSchedule.MEAL_TYPES) {
+                Meal meal = week.getMeal(day, mealType);
+                if (meal == null) {
+                    continue;
+                }
+                csvField(out, user.name()).append(',').append(day + 1).append(',').append(mealType).append(',');
+                csvField(out, meal.getName()).append(',').append(meal.getCalories()).append(',')
+                        .append(Double.toString(meal.getProtein())).append(',')
+                        .append(Double.toString(meal.getCarbs())).append(',')
+                        .append(Double.toString(meal.getFats())).append('\n');
+            }
+        }
+    }
+
+    private static void writeJsonLine(ExportWriter out, UserRecord user, MealSchedule week) throws IOException {
+        out.append("{\"user\":");
+        jsonString(out, user.name());
+        out.append(",\"dailyCalorieGoal\":").append(Long.toString(Math.round(user.dailyCalorieGoal())));
+        out.append(",\"days\":[");
+        for (int day = 0; day < week.getDays(); day++) {
+            if (day > 0) {
+                out.append(',');
+            }
+            out.append("{\"day\":").append(day + 1)
+               .append(",\"calories\":").append(week.getDailyCalories(day))
+               .append(",\"meals\":[");
+            boolean first = true;
+            for (String mealType : MealSchedule.MEAL_TYPES) {
+                Meal meal = week.getMeal(day, mealType);
+                if (meal == null) {
+                    continue;
+                }
+                if (!first) {
+                    out.append(',');
+                }
+                first = false;
+                out.append("{\"mealType\":\"").append(mealType).append("\",\"meal\":");
+                jsonString(out, meal.getName());
+                out.append(",\"calories\":").append(meal.getCalories())
+                   .append(",\"protein\":").append(Double.toString(meal.getProtein()))
+                   .append(",\"carbs\":").append(Double.toString(meal.getCarbs()))
+                   .append(",\"fats\":").append(Double.toString(meal.getFats()))
+                   .append('}');
+            }
+            out.append("]}");
+        }
+        out.append("]}\n");
+    }
+
+    private static ExportWriter csvField(ExportWriter out, String value) throws IOException {
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            return out.append(value);
+        }
+        return out.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+
+    private static void jsonString(ExportWriter out, String value) throws IOException {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> out.append("\\\"");
+                case '\\' -> out.append("\\\\");
+                case '\n' -> out.append("\\n");
+                case '\r' -> out.append("\\r");
+                case '\t' -> out.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        out.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        out.append(c);
+                    }
+                }
+            }
+        }
+        out.append('"');
+    }
+}
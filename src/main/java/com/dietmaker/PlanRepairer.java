@@ -0,0 +1,338 @@
+package com.dietmaker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Repairs an existing {@link MealSchedule} after a {@link PlanChange} instead of rebuilding it
+ *
+ * Only the slots the change breaks are replaced: the swapped-out meal, meals that mention a
+ * new allergy, or, after a goal change, the days now too far from the goal. Each affected
+ * day is then improved by local search over single-slot and two-slot swaps (the second meal
+ * picked among those closest to the calories still missing), scored by
+ *
+ *   ((day calories - goal) / 100)^2
+ *   + 1.0 for every slot changed that the change itself didn't break
+ *   + 0.5 for the same meal in the same slot on an adjacent day
+ *
+ * so an untouched meal is only replaced when that brings the day noticeably closer to the
+ * goal, and days the change doesn't affect are never looked at. Rescheduling a whole week
+ * against a catalog of a few hundred meals per type takes a few milliseconds.
+ *
+ * Meals carry no allergen data, so a meal conflicts with an allergy when its name or
+ * description mentions it ("nuts" also matches "peanut butter"). A slot with no allowed meal
+ * left is emptied.
+ */
+public class PlanRepairer {
+    private static final double CALORIE_SCALE = 100;  // a day this many calories off the goal costs 1
+    private static final double CHANGE_PENALTY = 1.0;
+    private static final double REPEAT_PENALTY = 0.5;
+    private static final int MAX_ROUNDS = 32;
+    private static final int PAIR_NEIGHBOURS = 3;   // options tried on each side of the ideal calories
+    private static final int TYPES = MealSchedule.MEAL_TYPES.size();
+
+    private final Meal[][] catalog; // catalog meals per meal type
+
+    public PlanRepairer(DietPlan catalog) {
+        this.catalog = new Meal[TYPES][];
+        for (int type = 0; type < TYPES; type++) {
+            this.catalog[type] = catalog.getMealsByType(MealSchedule.MEAL_TYPES.get(type)).toArray(new Meal[0]);
+        }
+    }
+
+    /**
+     * A slot of a schedule
+     */
+    public record Slot(int day, String mealType) {
+    }
+
+    /**
+     * The repaired schedule and the slots whose meal differs from the original
+     */
+    public record Result(MealSchedule schedule, List<Slot> changedSlots) {
+    }
+
+    public Result repair(MealSchedule plan, User.Profile profile, PlanChange change) {
+        List<String> allergies = new ArrayList<>(profile.getAllergies());
+        if (change instanceof PlanChange.AllergyAdded added) {
+            allergies.add(added.allergy());
+        }
+        Repair repair = new Repair(plan, profile.getDailyCalorieGoal(), allowedMeals(allergies));
+        int days = plan.getDays();
+
+        if (change instanceof PlanChange.MealRemoved removed) {
+            if (removed.day() < 0 || removed.day() >= days) {
+                throw new IllegalArgumentException("Day " + removed.day() + " is outside the " + days + "-day plan");
+            }
+            int type = MealSchedule.typeIndex(removed.mealType());
+            repair.banned = plan.getMeal(removed.day(), type);
+            repair.bannedDay = removed.day();
+            repair.bannedType = type;
+            repair.breakSlot(removed.day(), type);
+        } else if (change instanceof PlanChange.AllergyAdded) {
+            for (int day = 0; day < days; day++) {
+                for (int type = 0; type < TYPES; type++) {
+                    Meal meal = plan.getMeal(day, type);
+                    if (meal != null && conflicts(meal, allergies)) {
+                        repair.breakSlot(day, type);
+                    }
+                }
+            }
+        } else if (change instanceof PlanChange.GoalChanged) {
+            for (int day = 0; day < days; day++) {
+                if (Math.abs(plan.getDailyCalories(day) - repair.goal) > CALORIE_SCALE) {
+                    repair.dirty[day] = true;
+                }
+            }
+        }
+
+        for (int day = 0; day < days; day++) {
+            if (repair.dirty[day]) {
+                repair.optimizeDay(day);
+            }
+        }
+
+        List<Slot> changed = new ArrayList<>();
+        for (int day = 0; day < days; day++) {
+            for (int type = 0; type < TYPES; type++) {
+                if (!Objects.equals(plan.getMeal(day, type), repair.work[day][type])) {
+                    changed.add(new Slot(day, MealSchedule.MEAL_TYPES.get(type)));
+                }
+            }
+        }
+        return new Result(MealSchedule.wrap(repair.work), changed);
+    }
+
+    private Meal[][] allowedMeals(List<String> allergies) {
+        Meal[][] allowed = new Meal[TYPES][];
+        for (int type = 0; type < TYPES; type++) {
+            List<Meal> meals = new ArrayList<>();
+            for (Meal meal : catalog[type]) {
+                if (!conflicts(meal, allergies)) {
+                    meals.add(meal);
+                }
+            }
+            allowed[type] = meals.toArray(new Meal[0]);
+        }
+        return allowed;
+    }
+
+    static boolean conflicts(Meal meal, List<String> allergies) {
+        String text = (meal.getName() + " " + meal.getDescription()).toLowerCase(Locale.ROOT);
+        for (String allergy : allergies) {
+            String term = allergy.trim().toLowerCase(Locale.ROOT);
+            if (term.length() > 3 && term.endsWith("s")) {
+                term = term.substring(0, term.length() - 1); // "eggs" should match "egg"
+            }
+            if (!term.isEmpty() && text.contains(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Working state of one repair
+     */
+    private static final class Repair {
+        final MealSchedule original;
+        final double goal;
+        final Meal[][] allowed;
+        final Meal[][] work;
+        final boolean[][] broken;
+        final boolean[] dirty;
+        Meal banned;
+        int bannedDay = -1;
+        int bannedType = -1;
+
+        Repair(MealSchedule original, double goal, Meal[][] allowed) {
+            this.original = original;
+            this.goal = goal;
+            this.allowed = allowed;
+            this.work = original.copySlots();
+            this.broken = new boolean[original.getDays()][TYPES];
+            this.dirty = new boolean[original.getDays()];
+        }
+
+        void breakSlot(int day, int type) {
+            broken[day][type] = true;
+            work[day][type] = null;
+            dirty[day] = true;
+        }
+
+        /**
+         * Local search over one day. Each slot's options are indexed once with their calories
+         * and their penalty (changed from the original, repeats a neighbouring day), so every
+         * candidate move is scored in constant time.
+         */
+        void optimizeDay(int day) {
+            Meal[][] options = new Meal[TYPES][];
+            int[][] calories = new int[TYPES][];
+            double[][] penalties = new double[TYPES][];
+            int[] chosen = new int[TYPES]; // index into options, -1 for an empty slot
+            for (int type = 0; type < TYPES; type++) {
+                options[type] = options(day, type);
+                calories[type] = new int[options[type].length];
+                penalties[type] = new double[options[type].length];
+                Meal originalMeal = original.getMeal(day, type);
+                chosen[type] = -1;
+                for (int i = 0; i < options[type].length; i++) {
+                    Meal meal = options[type][i];
+                    calories[type][i] = meal.getCalories();
+                    double penalty = 0;
+                    if (!broken[day][type] && !meal.equals(originalMeal)) {
+                        penalty += CHANGE_PENALTY;
+                    }
+                    if (day > 0 && meal.equals(work[day - 1][type])) {
+                        penalty += REPEAT_PENALTY;
+                    }
+                    if (day + 1 < work.length && meal.equals(work[day + 1][type])) {
+                        penalty += REPEAT_PENALTY;
+                    }
+                    penalties[type][i] = penalty;
+                    if (!broken[day][type] && meal.equals(work[day][type])) {
+                        chosen[type] = i;
+                    }
+                }
+            }
+
+            // Fill the broken slots greedily, then improve the whole day
+            for (int type = 0; type < TYPES; type++) {
+                if (!broken[day][type]) {
+                    continue;
+                }
+                int rest = total(calories, chosen);
+                double bestCost = Double.MAX_VALUE;
+                for (int i = 0; i < options[type].length; i++) {
+                    double cost = score(rest + calories[type][i]) + penalties[type][i];
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        chosen[type] = i;
+                    }
+                }
+            }
+
+            for (int round = 0; round < MAX_ROUNDS; round++) {
+                int total = total(calories, chosen);
+                double penalty = 0;
+                for (int type = 0; type < TYPES; type++) {
+                    penalty += penaltyAt(penalties[type], chosen[type]);
+                }
+                double bestCost = score(total) + penalty - 1e-9;
+                int bestA = -1;
+                int bestB = -1;
+                int bestMealA = -1;
+                int bestMealB = -1;
+                for (int a = 0; a < TYPES; a++) {
+                    int totalWithoutA = total - caloriesAt(calories[a], chosen[a]);
+                    double penaltyWithoutA = penalty - penaltyAt(penalties[a], chosen[a]);
+                    for (int i = 0; i < options[a].length; i++) {
+                        int totalA = totalWithoutA + calories[a][i];
+                        double penaltyA = penaltyWithoutA + penalties[a][i];
+                        double single = score(totalA) + penaltyA;
+                        if (single < bestCost) {
+                            bestCost = single;
+                            bestA = a;
+                            bestMealA = i;
+                            bestB = -1;
+                        }
+                        for (int b = a + 1; b < TYPES; b++) {
+                            // The second meal only has to make up the calories: try the few
+                            // options around the amount that would hit the goal exactly
+                            int totalWithoutB = totalA - caloriesAt(calories[b], chosen[b]);
+                            double penaltyWithoutB = penaltyA - penaltyAt(penalties[b], chosen[b]);
+                            int nearest = insertionPoint(calories[b], goal - totalWithoutB);
+                            int from = Math.max(0, nearest - PAIR_NEIGHBOURS);
+                            int to = Math.min(calories[b].length, nearest + PAIR_NEIGHBOURS);
+                            for (int j = from; j < to; j++) {
+                                double pair = score(totalWithoutB + calories[b][j]) + penaltyWithoutB + penalties[b][j];
+                                if (pair < bestCost) {
+                                    bestCost = pair;
+                                    bestA = a;
+                                    bestMealA = i;
+                                    bestB = b;
+                                    bestMealB = j;
+                                }
+                            }
+                        }
+                    }
+                }
+                if (bestA < 0) {
+                    break;
+                }
+                chosen[bestA] = bestMealA;
+                if (bestB >= 0) {
+                    chosen[bestB] = bestMealB;
+                }
+            }
+
+            for (int type = 0; type < TYPES; type++) {
+                if (chosen[type] >= 0) {
+                    work[day][type] = options[type][chosen[type]];
+                }
+            }
+        }
+
+        private double score(int calories) {
+            double off = (calories - goal) / CALORIE_SCALE;
+            return off * off;
+        }
+
+        private static int total(int[][] calories, int[] chosen) {
+            int total = 0;
+            for (int type = 0; type < TYPES; type++) {
+                total += caloriesAt(calories[type], chosen[type]);
+            }
+            return total;
+        }
+
+        private static int caloriesAt(int[] calories, int index) {
+            return index < 0 ? 0 : calories[index];
+        }
+
+        private static double penaltyAt(double[] values, int index) {
+            return index < 0 ? 0 : values[index];
+        }
+
+        /**
+         * Index of the first option with at least {@code calories}, in options sorted by calories
+         */
+        private static int insertionPoint(int[] sortedCalories, double calories) {
+            int low = 0;
+            int high = sortedCalories.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (sortedCalories[mid] < calories) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        /**
+         * Meals a slot may hold: allowed catalog meals, plus the original one if it is still fine
+         */
+        private Meal[] options(int day, int type) {
+            List<Meal> options = new ArrayList<>(allowed[type].length + 1);
+            boolean isBannedSlot = day == bannedDay && type == bannedType;
+            for (Meal meal : allowed[type]) {
+                if (!(isBannedSlot && meal.equals(banned))) {
+                    options.add(meal);
+                }
+            }
+            Meal originalMeal = original.getMeal(day, type);
+            if (!broken[day][type] && originalMeal != null && !options.contains(originalMeal)) {
+                options.add(originalMeal);
+            }
+            Meal[] sorted = options.toArray(new Meal[0]);
+            Arrays.sort(sorted, Comparator.comparingInt(Meal::getCalories));
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.dietmaker;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Ingredients and recipes with nutrition rolled up from ingredient data
+ *
+ * Ingredients carry nutrition per 100 g. A recipe is a list of components (ingredients or
+ * other recipes, e.g. a "Tahini Dressing" used in a "Quinoa Buddha Bowl") with quantities in
+ * grams; its nutrition is the total for the whole recipe. When a recipe is used as a
+ * component, its nutrition is scaled by quantity / recipe weight.
+ *
+ * Totals are memoized per node in primitive arrays. Because a recipe can only reference
+ * nodes that already exist, node ids are a topological order of the graph: when an
+ * ingredient changes, only the recipes reachable from it through the reverse edges are
+ * recomputed, in id order, each from its children's memoized totals. Updating one
+ * ingredient therefore costs time proportional to the recipes that use it, not to the
+ * size of the book.
+ *
+ * Not thread-safe; build and update from one thread, or publish copies of the resulting
+ * meals (see {@link #toMeal}). {@link CatalogService} does the latter for the served
+ * catalog: catalog meals named after a recipe take its nutrition, and are republished
+ * when an ingredient they use changes.
+ */
+public class RecipeBook {
+    private static final int[] NO_COMPONENTS = new int[0];
+    private static final double[] NO_QUANTITIES = new double[0];
+
+    private final Map<String, Integer> ids;
+    private String[] names;
+    private boolean[] ingredient;
+    // Memoized totals: per 100 g for ingredients, for the whole recipe otherwise
+    private double[] calories;
+    private double[] protein;
+    private double[] carbs;
+    private double[] fats;
+    private double[] grams;          // total recipe weight; 100 for ingredients
+    private int[][] components;
+    private double[][] quantities;   // grams of each component
+    private int[][] dependents;      // reverse edges
+    private int[] dependentCounts;
+    private int size;
+
+    public RecipeBook() {
+        this.ids = new HashMap<>();
+        allocate(64);
+    }
+
+    /**
+     * Rolled-up nutrition of an ingredient (per 100 g) or a recipe (whole recipe)
+     */
+    public record Nutrition(double calories, double protein, double carbs, double fats, double grams) {
+    }
+
+    /**
+     * Add an ingredient with nutrition per 100 g
+     */
+    public void addIngredient(String name, double calories, double protein, double carbs, double fats) {
+        int id = newNode(name, true);
+        setTotals(id, calories, protein, carbs, fats, 100.0);
+        components[id] = NO_COMPONENTS;
+        quantities[id] = NO_QUANTITIES;
+    }
+
+    /**
+     * Add a recipe made of existing ingredients or recipes, with quantities in grams
+     */
+    public void addRecipe(String name, Map<String, Double> componentGrams) {
+        if (componentGrams.isEmpty()) {
+            throw new IllegalArgumentException("Recipe " + name + " has no components");
+        }
+        int[] children = new int[componentGrams.size()];
+        double[] amounts = new double[componentGrams.size()];
+        int i = 0;
+        for (Map.Entry<String, Double> component : componentGrams.entrySet()) {
+            children[i] = idOf(component.getKey());
+            amounts[i] = component.getValue();
+            if (!(amounts[i] > 0)) {
+                throw new IllegalArgumentException("Quantity of " + component.getKey() + " in " + name
+                                                   + " must be positive");
+            }
+            i++;
+        }
+        int id = newNode(name, false);
+        components[id] = children;
+        quantities[id] = amounts;
+        for (int child : children) {
+            addDependent(child, id);
+        }
+        recompute(id);
+    }
+
+    /**
+     * Change an ingredient's nutrition per 100 g and recompute every recipe that uses it,
+     * directly or through sub-recipes
+     *
+     * @return names of the recipes whose totals were recomputed, in dependency order
+     */
+    public List<String> updateIngredient(String name, double calories, double protein, double carbs, double fats) {
+        int id = idOf(name);
+        if (!ingredient[id]) {
+            throw new IllegalArgumentException(name + " is a recipe, not an ingredient");
+        }
+        setTotals(id, calories, protein, carbs, fats, 100.0);
+
+        int[] affected = collectDependents(id);
+        List<String> recomputed = new ArrayList<>(affected.length);
+        for (int recipe : affected) {
+            recompute(recipe);
+            recomputed.add(names[recipe]);
+        }
+        return recomputed;
+    }
+
+    public Nutrition getNutrition(String name) {
+        int id = idOf(name);
+        return new Nutrition(calories[id], protein[id], carbs[id], fats[id], grams[id]);
+    }
+
+    public boolean contains(String name) {
+        return ids.containsKey(name);
+    }
+
+    /**
+     * Names of all recipes, without the ingredients
+     */
+    public Set<String> getRecipeNames() {
+        Set<String> recipes = new HashSet<>();
+        for (int id = 0; id < size; id++) {
+            if (!ingredient[id]) {
+                recipes.add(names[id]);
+            }
+        }
+        return recipes;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * A meal whose nutrition is the recipe's current roll-up. The meal is a copy; build a
+     * new one after updating ingredients.
+     */
+    public Meal toMeal(String recipe, String description, String mealType) {
+        int id = idOf(recipe);
+        if (ingredient[id]) {
+            throw new IllegalArgumentException(recipe + " is an ingredient, not a recipe");
+        }
+        return new Meal(recipe, description, (int) Math.round(calories[id]),
+                        round1(protein[id]), round1(carbs[id]), round1(fats[id]), mealType);
+    }
+
+    private static double round1(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    /**
+     * Recipes reachable from {@code id} through reverse edges, sorted by id (dependency order)
+     */
+    private int[] collectDependents(int id) {
+        BitSet seen = new BitSet(size);
+        int[] stack = new int[16];
+        int top = 0;
+        stack[top++] = id;
+        while (top > 0) {
+            int node = stack[--top];
+            int[] parents = dependents[node];
+            for (int i = 0; i < dependentCounts[node]; i++) {
+                int parent = parents[i];
+                if (!seen.get(parent)) {
+                    seen.set(parent);
+                    if (top == stack.length) {
+                        stack = Arrays.copyOf(stack, top * 2);
+                    }
+                    stack[top++] = parent;
+                }
+            }
+        }
+        return seen.stream().toArray();
+    }
+
+    private void recompute(int id) {
+        double totalCalories = 0;
+        double totalProtein = 0;
+        double totalCarbs = 0;
+        double totalFats = 0;
+        double totalGrams = 0;
+        int[] children = components[id];
+        double[] amounts = quantities[id];
+        for (int i = 0; i < children.length; i++) {
+            int child = children[i];
+            double scale = amounts[i] / grams[child];
+            totalCalories += calories[child] * scale;
+            totalProtein += protein[child] * scale;
+            totalCarbs += carbs[child] * scale;
+            totalFats += fats[child] * scale;
+            totalGrams += amounts[i];
+        }
+        setTotals(id, totalCalories, totalProtein, totalCarbs, totalFats, totalGrams);
+    }
+
+    private void setTotals(int id, double calories, double protein, double carbs, double fats, double grams) {
+        this.calories[id] = calories;
+        this.protein[id] = protein;
+        this.carbs[id] = carbs;
+        this.fats[id] = fats;
+        this.grams[id] = grams;
+    }
+
+    private int idOf(String name) {
+        Integer id = ids.get(name);
+        if (id == null) {
+            throw new IllegalArgumentException("Unknown ingredient or recipe: " + name);
+        }
+        return id;
+    }
+
+    private int newNode(String name, boolean isIngredient) {
+        if (ids.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate ingredient or recipe: " + name);
+        }
+        if (size == names.length) {
+            grow(size * 2);
+        }
+        int id = size++;
+        ids.put(name, id);
+        names[id] = name;
+        ingredient[id] = isIngredient;
+        dependents[id] = NO_COMPONENTS;
+        return id;
+    }
+
+    private void addDependent(int child, int parent) {
+        int count = dependentCounts[child];
+        int[] parents = dependents[child];
+        if (count > 0 && parents[count - 1] == parent) {
+            return;
+        }
+        if (count == parents.length) {
+            parents = Arrays.copyOf(parents, Math.max(4, count * 2));
+            dependents[child] = parents;
+        }
+        parents[count] = parent;
+        dependentCounts[child] = count + 1;
+    }
+
+    private void allocate(int capacity) {
+        names = new String[capacity];
+        ingredient = new boolean[capacity];
+        calories = new double[capacity];
+        protein = new double[capacity];
+        carbs = new double[capacity];
+        fats = new double[capacity];
+        grams = new double[capacity];
+        components = new int[capacity][];
+        quantities = new double[capacity][];
+        dependents = new int[capacity][];
+        dependentCounts = new int[capacity];
+    }
+
+    private void grow(int capacity) {
+        names = Arrays.copyOf(names, capacity);
+        ingredient = Arrays.copyOf(ingredient, capacity);
+        calories = Arrays.copyOf(calories, capacity);
+        protein = Arrays.copyOf(protein, capacity);
+        carbs = Arrays.copyOf(carbs, capacity);
+        fats = Arrays.copyOf(fats, capacity);
+        grams = Arrays.copyOf(grams, capacity);
+        components = Arrays.copyOf(components, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        dependents = Arrays.copyOf(dependents, capacity);
+        dependentCounts = Arrays.copyOf(dependentCounts, capacity);
+    }
+}
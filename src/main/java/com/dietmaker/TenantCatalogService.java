@@ -0,0 +1,144 @@
+package com.dietmaker;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Per-tenant (per-clinic) view of the meal catalog
+ *
+ * All tenants share the single base {@link MealCatalog} published by {@link CatalogService}.
+ * A tenant only stores {@link TenantOverlay}s for the plans it customized, so memory grows
+ * with the number of customizations rather than with the number of tenants. A plan the
+ * tenant hasn't touched resolves to the base plan object itself. A customized plan is
+ * merged once and cached on the base snapshot with {@link MealCatalog#derived}; the merge
+ * only references base meals, and a reload or an overlay change drops it.
+ *
+ * Overlays are replaced copy-on-write, so lookups never lock. Tenant overlays can be
+ * preloaded from dietmaker.tenants.dir: one subdirectory per tenant, holding plan files
+ * in the {@link MealCatalog} format whose meals are added to (or replace, by name) the
+ * base plan of the same type. Like {@link CatalogService}, the bean is created eagerly so a
+ * bad tenant directory fails startup.
+ */
+@Service
+@Lazy(false)
+public class TenantCatalogService {
+    private final CatalogService catalogService;
+    private final Map<String, Map<String, TenantOverlay>> tenants; // tenant -> diet type -> overlay
+
+    /**
+     * A merged plan with the overlay it was merged from
+     */
+    private record Resolved(TenantOverlay overlay, DietPlan plan) {
+    }
+
+    public TenantCatalogService(CatalogService catalogService,
+                                @Value("${dietmaker.tenants.dir:}") String directory) throws IOException {
+        this.catalogService = catalogService;
+        this.tenants = new ConcurrentHashMap<>();
+        if (directory != null && !directory.isBlank()) {
+            loadTenants(Paths.get(directory));
+        }
+    }
+
+    /**
+     * The tenant's version of a diet plan, or null if the tenant or plan is unknown
+     */
+    public DietPlan getPlan(String tenant, String type) {
+        Map<String, TenantOverlay> overlays = tenants.get(tenant);
+        if (overlays == null) {
+            return null;
+        }
+        MealCatalog base = catalogService.current();
+        String key = type.toLowerCase();
+        TenantOverlay overlay = overlays.get(key);
+        if (overlay == null) {
+            return base.getPlan(key);
+        }
+        String cacheKey = cacheKey(tenant, key);
+        Resolved resolved = base.derived(cacheKey, catalog -> new Resolved(overlay, overlay.resolve(catalog.getPlan(key))));
+        if (resolved.overlay() != overlay) {
+            // Merged by a reader that raced an overlay change; the next lookup caches again
+            base.evict(cacheKey);
+            return overlay.resolve(base.getPlan(key));
+        }
+        return resolved.plan();
+    }
+
+    private static String cacheKey(String tenant, String type) {
+        return "tenant-plan:" + tenant + "/" + type;
+    }
+
+    public boolean hasTenant(String tenant) {
+        return tenants.containsKey(tenant);
+    }
+
+    public Set<String> getTenants() {
+        return tenants.keySet();
+    }
+
+    /**
+     * Register a tenant that starts out with the base catalog unchanged
+     */
+    public void addTenant(String tenant) {
+        tenants.putIfAbsent(tenant, Map.of());
+    }
+
+    /**
+     * Atomically replace the tenant's overlay for one diet type, registering the tenant if needed
+     */
+    public void updateOverlay(String tenant, String type, UnaryOperator<TenantOverlay> change) {
+        String key = type.toLowerCase();
+        tenants.compute(tenant, (t, overlays) -> {
+            Map<String, TenantOverlay> updated = overlays == null ? new HashMap<>() : new HashMap<>(overlays);
+            updated.put(key, change.apply(updated.getOrDefault(key, TenantOverlay.empty())));
+            return Map.copyOf(updated);
+        });
+        catalogService.current().evict(cacheKey(tenant, key));
+    }
+
+    /**
+     * Add a meal to the tenant's plan, replacing a base meal of the same name
+     */
+    public void putMeal(String tenant, String type, Meal meal) {
+        updateOverlay(tenant, type, overlay -> overlay.withMeal(meal));
+    }
+
+    /**
+     * Hide a meal from the tenant's plan
+     */
+    public void removeMeal(String tenant, String type, String mealName) {
+        updateOverlay(tenant, type, overlay -> overlay.withoutMeal(mealName));
+    }
+
+    private void loadTenants(Path directory) throws IOException {
+        try (DirectoryStream<Path> tenantDirs = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path tenantDir : tenantDirs) {
+                String tenant = tenantDir.getFileName().toString();
+                addTenant(tenant);
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(tenantDir,
+                                                                            "*" + MealCatalog.PLAN_FILE_EXTENSION)) {
+                    for (Path file : files) {
+                        String fileName = file.getFileName().toString();
+                        String type = fileName.substring(0, fileName.length() - MealCatalog.PLAN_FILE_EXTENSION.length());
+                        DietPlan plan = MealCatalog.parsePlan(tenant + "/" + fileName,
+                                                              Files.readAllLines(file, StandardCharsets.UTF_8));
+                        updateOverlay(tenant, type, overlay -> TenantOverlay.of(plan));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.dietmaker;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One tenant's changes to a single diet plan of the shared base catalog
+ *
+ * Holds only what the tenant customized: added or replaced meals (matched to base meals
+ * by name), removed meal names, and optionally a different plan name and description.
+ * Instances are immutable; the with* methods return modified copies, so readers can
+ * resolve plans while an admin edits the overlay.
+ */
+public final class TenantOverlay {
+    private static final TenantOverlay EMPTY = new TenantOverlay(null, null, Map.of(), Set.of());
+
+    private final String name;
+    private final String description;
+    private final Map<String, Meal> meals;   // added or replacing base meals, by meal name
+    private final Set<String> removed;
+
+    private TenantOverlay(String name, String description, Map<String, Meal> meals, Set<String> removed) {
+        this.name = name;
+        this.description = description;
+        this.meals = meals;
+        this.removed = removed;
+    }
+
+    public static TenantOverlay empty() {
+        return EMPTY;
+    }
+
+    /**
+     * An overlay that renames the plan and adds or replaces all meals of {@code plan}
+     */
+    public static TenantOverlay of(DietPlan plan) {
+        TenantOverlay overlay = empty().withDetails(plan.getName(), plan.getDescription());
+        for (Meal meal : plan.getAllMeals()) {
+            overlay = overlay.withMeal(meal);
+        }
+        return overlay;
+    }
+
+    public TenantOverlay withDetails(String name, String description) {
+        return new TenantOverlay(name, description, meals, removed);
+    }
+
+    /**
+     * Add a meal, replacing any base or overlay meal with the same name
+     */
+    public TenantOverlay withMeal(Meal meal) {
+        Map<String, Meal> newMeals = new LinkedHashMap<>(meals);
+        newMeals.put(meal.getName(), meal);
+        Set<String> newRemoved = removed;
+        if (removed.contains(meal.getName())) {
+            newRemoved = new HashSet<>(removed);
+            newRemoved.remove(meal.getName());
+            newRemoved = Collections.unmodifiableSet(newRemoved);
+        }
+        return new TenantOverlay(name, description, Collections.unmodifiableMap(newMeals), newRemoved);
+    }
+
+    /**
+     * Hide a meal, whether it comes from the base plan or this overlay
+     */
+    public TenantOverlay withoutMeal(String mealName) {
+        Map<String, Meal> newMeals = meals;
+        if (meals.containsKey(mealName)) {
+            newMeals = new LinkedHashMap<>(meals);
+            newMeals.remove(mealName);
+            newMeals = Collections.unmodifiableMap(newMeals);
+        }
+        Set<String> newRemoved = new HashSet<>(removed);
+        newRemoved.add(mealName);
+        return new TenantOverlay(name, description, newMeals, Collections.unmodifiableSet(newRemoved));
+    }
+
+    /**
+     * Number of customized entries; what this overlay costs in memory
+     */
+    public int size() {
+        return meals.size() + removed.size();
+    }
+
+    /**
+     * Merge this overlay onto a base plan (null if the tenant adds a plan of its own); the
+     * result is read-only and shares the base plan's meal objects
+     */
+    DietPlan resolve(DietPlan base) {
+        String planName = name != null ? name : (base != null ? base.getName() : "");
+        String planDescription = description != null ? description : (base != null ? base.getDescription() : "");
+        DietPlan plan = new DietPlan(planName, planDescription);
+        Set<String> replaced = new HashSet<>();
+        if (base != null) {
+            for (Map.Entry<String, List<Meal>> type : base.getMealsByType().entrySet()) {
+                for (Meal meal : type.getValue()) {
+                    if (removed.contains(meal.getName())) {
+                        continue;
+                    }
+                    Meal override = meals.get(meal.getName());
+                    if (override == null) {
+                        plan.addMeal(meal);
+                    } else if (override.getMealType().equals(meal.getMealType())) {
+                        plan.addMeal(override); // keeps the base meal's position
+                        replaced.add(meal.getName());
+                    }
+                    // an override of another meal type is added with the new meals below
+                }
+            }
+        }
+        for (Meal meal : meals.values()) {
+            if (!replaced.contains(meal.getName())) {
+                plan.addMeal(meal);
+            }
+        }
+        return plan.freeze();
+    }
+}
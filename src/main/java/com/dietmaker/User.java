@@ -1,157 +1,360 @@
 package com.dietmaker;
 
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
 
 /**
  * Represents a user with personal information and diet preferences
+ *
+ * The profile data lives in an immutable {@link Profile} snapshot. Readers take the current
+ * snapshot without locking; every update builds a new snapshot from the one it read and
+ * publishes it with compare-and-set, retrying if another thread got there first. Concurrent
+ * edits therefore never tear (e.g. a weight paired with a stale calorie goal) and never lose
+ * each other's changes. Read several fields through {@link #getProfile()} to see them
+ * consistently.
  */
 public class User {
-    private String name;
-    private int age;
-    private double weight; // in kg
-    private double height; // in cm
-    private String activityLevel; // sedentary, lightly active, moderately active, very active
-    private String dietPreference; // vegetarian, non-vegetarian, balanced
-    private List<String> allergies;
-    private List<Meal> favoriteMeals;
-    private double dailyCalorieGoal;
+    private final AtomicReference<Profile> profile;
+    private final WeightHistory weightHistory;
 
     public User(String name, int age, double weight, double height, String activityLevel) {
-        this.name = name;
-        this.age = age;
-        this.weight = weight;
-        this.height = height;
-        this.activityLevel = activityLevel;
-        this.allergies = new ArrayList<>();
-        this.favoriteMeals = new ArrayList<>();
-        this.dailyCalorieGoal = calculateDailyCalorieGoal();
+        this.profile = new AtomicReference<>(
+                new Profile(name, age, weight, height, activityLevel, null, List.of(), List.of(), Double.NaN)
+                        .withRecalculatedGoal());
+        this.weightHistory = new WeightHistory();
     }
 
     /**
-     * Calculate daily calorie goal using basic BMR formula
-     * BMR (Basal Metabolic Rate) calculation using Mifflin-St Jeor Equation
+     * Immutable snapshot of a user's profile
      */
-    private double calculateDailyCalorieGoal() {
+    public static final class Profile {
+        private final String name;
+        private final int age;
+        private final double weight; // in kg
+        private final double height; // in cm
+        private final String activityLevel; // sedentary, lightly active, moderately active, very active
+        private final String dietPreference; // vegetarian, non-vegetarian, balanced
+        private final List<String> allergies;
+        private final List<Meal> favoriteMeals;
+        private final double dailyCalorieGoal;
+
+        private Profile(String name, int age, double weight, double height, String activityLevel,
+                        String dietPreference, List<String> allergies, List<Meal> favoriteMeals,
+                        double dailyCalorieGoal) {
+            this.name = name;
+            this.age = age;
+            this.weight = weight;
+            this.height = height;
+            this.activityLevel = activityLevel;
+            this.dietPreference = dietPreference;
+            this.allergies = allergies;
+            this.favoriteMeals = favoriteMeals;
+            this.dailyCalorieGoal = dailyCalorieGoal;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public double getWeight() {
+            return weight;
+        }
+
+        public double getHeight() {
+            return height;
+        }
+
+        public String getActivityLevel() {
+            return activityLevel;
+        }
+
+        public String getDietPreference() {
+            return dietPreference;
+        }
+
+        public List<String> getAllergies() {
+            return allergies;
+        }
+
+        public List<Meal> getFavoriteMeals() {
+            return favoriteMeals;
+        }
+
+        public double getDailyCalorieGoal() {
+            return dailyCalorieGoal;
+        }
+
+        /**
+         * Multiplier applied to BMR to get total daily energy expenditure
+         */
+        public double getActivityMultiplier() {
+            // Activity level multipliers
+            return switch (activityLevel.toLowerCase()) {
+                case "sedentary" -> 1.2;
+                case "lightly active" -> 1.375;
+                case "moderately active" -> 1.55;
+                case "very active" -> 1.725;
+                default -> 1.4;
+            };
+        }
+
+        public Profile withName(String name) {
+            return new Profile(name, age, weight, height, activityLevel, dietPreference,
+                               allergies, favoriteMeals, dailyCalorieGoal);
+        }
+
+        public Profile withAge(int age) {
+            return new Profile(name, age, weight, height, activityLevel, dietPreference,
+                               allergies, favoriteMeals, dailyCalorieGoal).withRecalculatedGoal();
+        }
+
+        public Profile withWeight(double weight) {
+            return new Profile(name, age, weight, height, activityLevel, dietPreference,
+                               allergies, favoriteMeals, dailyCalorieGoal).withRecalculatedGoal();
+        }
+
+        public Profile withHeight(double height) {
+            return new Profile(name, age, weight, height, activityLevel, dietPreference,
+                               allergies, favoriteMeals, dailyCalorieGoal).withRecalculatedGoal();
+        }
+
+        public Profile withActivityLevel(String activityLevel) {
+            return new Profile(name, age, weight, height, activityLevel, dietPreference,
+                               allergies, favoriteMeals, dailyCalorieGoal).withRecalculatedGoal();
+        }
+
+        public Profile withDietPreference(String dietPreference) {
+            return new Profile(name, age, weight, height, activityLevel, dietPreference,
+                               allergies, favoriteMeals, dailyCalorieGoal);
+        }
+
+        public Profile withDailyCalorieGoal(double dailyCalorieGoal) {
+            return new Profile(name, age, weight, height, activityLevel, dietPreference,
+                               allergies, favoriteMeals, dailyCalorieGoal);
+        }
+
+        public Profile withAllergies(List<String> allergies) {
+            return new Profile(name, age, weight, height, activityLevel, dietPreference,
+                               Collections.unmodifiableList(new ArrayList<>(allergies)), favoriteMeals,
+                               dailyCalorieGoal);
+        }
+
+        public Profile withFavoriteMeals(List<Meal> favoriteMeals) {
+            return new Profile(name, age, weight, height, activityLevel, dietPreference,
+                               allergies, Collections.unmodifiableList(new ArrayList<>(favoriteMeals)),
+                               dailyCalorieGoal);
+        }
+
+        /**
+         * Calculate daily calorie goal using basic BMR formula
+         * BMR (Basal Metabolic Rate) calculation using Mifflin-St Jeor Equation
+         */
+        private Profile withRecalculatedGoal() {
+            return withDailyCalorieGoal(calculateBMR(weight, height, age) * getActivityMultiplier());
+        }
+    }
+
+    /**
+     * Basal metabolic rate for the given body measurements (Mifflin-St Jeor, simplified)
+     */
+    public static double calculateBMR(double weight, double height, int age) {
         // Basic BMR calculation (this is a simplified version)
-        double bmr = 10 * weight + 6.25 * height - 5 * age + 5; // for males (simplified)
-        
-        // Activity level multipliers
-        double activityMultiplier = switch (activityLevel.toLowerCase()) {
-            case "sedentary" -> 1.2;
-            case "lightly active" -> 1.375;
-            case "moderately active" -> 1.55;
-            case "very active" -> 1.725;
-            default -> 1.4;
-        };
-        
-        return bmr * activityMultiplier;
+        return 10 * weight + 6.25 * height - 5 * age + 5; // for males (simplified)
+    }
+
+    /**
+     * The current profile snapshot; all fields in it are mutually consistent
+     */
+    public Profile getProfile() {
+        return profile.get();
+    }
+
+    /**
+     * Atomically apply {@code change} to the current profile. The function may run more
+     * than once under contention, so it must not have side effects.
+     *
+     * @return the profile that was published
+     */
+    public Profile update(UnaryOperator<Profile> change) {
+        while (true) {
+            Profile current = profile.get();
+            Profile next = change.apply(current);
+            if (next == current || profile.compareAndSet(current, next)) {
+                return next;
+            }
+        }
     }
 
     // Getters
     public String getName() {
-        return name;
+        return profile.get().getName();
     }
 
     public int getAge() {
-        return age;
+        return profile.get().getAge();
     }
 
     public double getWeight() {
-        return weight;
+        return profile.get().getWeight();
     }
 
     public double getHeight() {
-        return height;
+        return profile.get().getHeight();
     }
 
     public String getActivityLevel() {
-        return activityLevel;
+        return profile.get().getActivityLevel();
     }
 
     public String getDietPreference() {
-        return dietPreference;
+        return profile.get().getDietPreference();
     }
 
+    /**
+     * Unmodifiable snapshot of the allergies; use addAllergy/removeAllergy to change them
+     */
     public List<String> getAllergies() {
-        return allergies;
+        return profile.get().getAllergies();
     }
 
+    /**
+     * Unmodifiable snapshot of the favorite meals; use addFavoriteMeal/removeFavoriteMeal to change them
+     */
     public List<Meal> getFavoriteMeals() {
-        return favoriteMeals;
+        return profile.get().getFavoriteMeals();
     }
 
     public double getDailyCalorieGoal() {
-        return dailyCalorieGoal;
+        return profile.get().getDailyCalorieGoal();
+    }
+
+    /**
+     * Multiplier applied to BMR to get total daily energy expenditure
+     */
+    public double getActivityMultiplier() {
+        return profile.get().getActivityMultiplier();
+    }
+
+    /**
+     * Weigh-in history. Not thread-safe on its own: synchronize on it when sharing the user
+     * across threads, as {@link #recordWeight} does.
+     */
+    public WeightHistory getWeightHistory() {
+        return weightHistory;
     }
 
     // Setters
     public void setName(String name) {
-        this.name = name;
+        update(p -> p.withName(name));
     }
 
     public void setAge(int age) {
-        this.age = age;
-        this.dailyCalorieGoal = calculateDailyCalorieGoal(); // recalculate when age changes
+        update(p -> p.withAge(age)); // recalculates the calorie goal
     }
 
     public void setWeight(double weight) {
-        this.weight = weight;
-        this.dailyCalorieGoal = calculateDailyCalorieGoal(); // recalculate when weight changes
+        update(p -> p.withWeight(weight)); // recalculates the calorie goal
     }
 
     public void setHeight(double height) {
-        this.height = height;
-        this.dailyCalorieGoal = calculateDailyCalorieGoal(); // recalculate when height changes
+        update(p -> p.withHeight(height)); // recalculates the calorie goal
     }
 
     public void setActivityLevel(String activityLevel) {
-        this.activityLevel = activityLevel;
-        this.dailyCalorieGoal = calculateDailyCalorieGoal(); // recalculate when activity level changes
+        update(p -> p.withActivityLevel(activityLevel)); // recalculates the calorie goal
     }
 
     public void setDietPreference(String dietPreference) {
-        this.dietPreference = dietPreference;
+        update(p -> p.withDietPreference(dietPreference));
     }
 
     public void setDailyCalorieGoal(double dailyCalorieGoal) {
-        this.dailyCalorieGoal = dailyCalorieGoal;
+        update(p -> p.withDailyCalorieGoal(dailyCalorieGoal));
+    }
+
+    /**
+     * Record a dated weigh-in: updates the current weight and appends it to the weight history
+     */
+    public void recordWeight(LocalDate date, double weight) {
+        synchronized (weightHistory) {
+            weightHistory.record(date, weight);
+            setWeight(weight);
+        }
     }
 
     // Utility methods
     public void addAllergy(String allergy) {
-        if (!allergies.contains(allergy)) {
+        update(p -> {
+            if (p.getAllergies().contains(allergy)) {
+                return p;
+            }
+            List<String> allergies = new ArrayList<>(p.getAllergies());
             allergies.add(allergy);
-        }
+            return p.withAllergies(allergies);
+        });
     }
 
     public void removeAllergy(String allergy) {
-        allergies.remove(allergy);
+        update(p -> {
+            if (!p.getAllergies().contains(allergy)) {
+                return p;
+            }
+            List<String> allergies = new ArrayList<>(p.getAllergies());
+            allergies.remove(allergy);
+            return p.withAllergies(allergies);
+        });
     }
 
     public void addFavoriteMeal(Meal meal) {
-        if (!favoriteMeals.contains(meal)) {
+        update(p -> {
+            if (p.getFavoriteMeals().contains(meal)) {
+                return p;
+            }
+            List<Meal> favoriteMeals = new ArrayList<>(p.getFavoriteMeals());
             favoriteMeals.add(meal);
-        }
+            return p.withFavoriteMeals(favoriteMeals);
+        });
     }
 
     public void removeFavoriteMeal(Meal meal) {
-        favoriteMeals.remove(meal);
+        update(p -> {
+            if (!p.getFavoriteMeals().contains(meal)) {
+                return p;
+            }
+            List<Meal> favoriteMeals = new ArrayList<>(p.getFavoriteMeals());
+            favoriteMeals.remove(meal);
+            return p.withFavoriteMeals(favoriteMeals);
+        });
     }
 
     /**
      * Calculate BMI (Body Mass Index)
      */
     public double calculateBMI() {
-        double heightInMeters = height / 100.0;
-        return weight / (heightInMeters * heightInMeters);
+        return calculateBMI(profile.get());
+    }
+
+    private static double calculateBMI(Profile p) {
+        double heightInMeters = p.getHeight() / 100.0;
+        return p.getWeight() / (heightInMeters * heightInMeters);
     }
 
     /**
      * Get BMI category
      */
     public String getBMICategory() {
-        double bmi = calculateBMI();
+        return getBMICategory(calculateBMI());
+    }
+
+    private static String getBMICategory(double bmi) {
         if (bmi < 18.5) {
             return "Underweight";
         } else if (bmi < 25) {
@@ -165,8 +368,11 @@ public class User {
 
     @Override
     public String toString() {
+        Profile p = profile.get();
+        double bmi = calculateBMI(p);
         return String.format("User: %s, Age: %d, Weight: %.1f kg, Height: %.1f cm, Activity: %s, BMI: %.1f (%s), Daily Calorie Goal: %.0f",
-                           name, age, weight, height, activityLevel, calculateBMI(), getBMICategory(), dailyCalorieGoal);
+                           p.getName(), p.getAge(), p.getWeight(), p.getHeight(), p.getActivityLevel(),
+                           bmi, getBMICategory(bmi), p.getDailyCalorieGoal());
     }
 
     @Override
@@ -174,11 +380,11 @@ public class User {
         if (this == obj) return true;
         if (obj == null || getClass() != obj.getClass()) return false;
         User user = (User) obj;
-        return name.equals(user.name);
+        return getName().equals(user.getName());
     }
 
     @Override
     public int hashCode() {
-        return name.hashCode();
+        return getName().hashCode();
     }
 }
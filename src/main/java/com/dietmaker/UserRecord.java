@@ -0,0 +1,84 @@
+package com.dietmaker;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Serializable snapshot of a user as stored and replicated by {@link ClusterNode}
+ *
+ * Besides the profile it carries the favorite meals and the weigh-in history, the latter in
+ * the compressed form of {@link WeightHistory#toBytes()} (base64 in JSON), so a user keeps
+ * them across writes, replication and rebalancing. The array is not copied; treat it as
+ * read-only.
+ *
+ * The version is assigned by the key's primary node on every write, and origin is that
+ * node's id. Replicas keep the newest copy by (version, origin): when a replica took over
+ * as primary while the old primary was unreachable, both may assign the same version to
+ * different writes, and the origin breaks the tie the same way on every node.
+ */
+public record UserRecord(String name, int age, double weight, double height, String activityLevel,
+                         String dietPreference, List<String> allergies, double dailyCalorieGoal,
+                         List<FavoriteMeal> favoriteMeals, byte[] weightHistory, long version, String origin) {
+    private static final Comparator<UserRecord> NEWEST = Comparator.comparingLong(UserRecord::version)
+            .thenComparing(UserRecord::origin, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    public UserRecord {
+        allergies = allergies == null ? List.of() : List.copyOf(allergies);
+        favoriteMeals = favoriteMeals == null ? List.of() : List.copyOf(favoriteMeals);
+    }
+
+    /**
+     * A favorite meal as stored with the user; micronutrients are catalog data and aren't kept
+     */
+    public record FavoriteMeal(String name, String description, int calories, double protein, double carbs,
+                               double fats, String mealType) {
+
+        static FavoriteMeal from(Meal meal) {
+            return new FavoriteMeal(meal.getName(), meal.getDescription(), meal.getCalories(), meal.getProtein(),
+                                    meal.getCarbs(), meal.getFats(), meal.getMealType());
+        }
+
+        Meal toMeal() {
+            return new Meal(name, description, calories, protein, carbs, fats, mealType);
+        }
+    }
+
+    public static UserRecord from(User user) {
+        User.Profile p = user.getProfile();
+        List<FavoriteMeal> favorites = p.getFavoriteMeals().stream().map(FavoriteMeal::from).toList();
+        byte[] history;
+        WeightHistory weights = user.getWeightHistory();
+        synchronized (weights) {
+            history = weights.isEmpty() ? null : weights.toBytes();
+        }
+        return new UserRecord(p.getName(), p.getAge(), p.getWeight(), p.getHeight(), p.getActivityLevel(),
+                              p.getDietPreference(), p.getAllergies(), p.getDailyCalorieGoal(), favorites,
+                              history, 0, null);
+    }
+
+    public User toUser() {
+        User user = new User(name, age, weight, height, activityLevel);
+        List<Meal> favorites = favoriteMeals.stream().map(FavoriteMeal::toMeal).toList();
+        user.update(p -> p.withDietPreference(dietPreference)
+                          .withAllergies(allergies)
+                          .withFavoriteMeals(favorites)
+                          .withDailyCalorieGoal(dailyCalorieGoal));
+        if (weightHistory != null) {
+            user.getWeightHistory().readFrom(weightHistory);
+        }
+        return user;
+    }
+
+    /**
+     * Whether this copy wins over {@code other}: a higher version, or the same version
+     * assigned by a node with a greater id
+     */
+    public boolean isNewerThan(UserRecord other) {
+        return NEWEST.compare(this, other) > 0;
+    }
+
+    UserRecord withVersion(long version, String origin) {
+        return new UserRecord(name, age, weight, height, activityLevel, dietPreference, allergies,
+                              dailyCalorieGoal, favoriteMeals, weightHistory, version, origin);
+    }
+}
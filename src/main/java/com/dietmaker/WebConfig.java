@@ -0,0 +1,77 @@
+package com.dietmaker;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Static asset serving for the web UI
+ *
+ * Stylesheets are served under content-hashed URLs (e.g. /css/index-3f2a...css), so they
+ * can be cached as immutable for a year; a changed file simply gets a new URL. The plain
+ * URLs still work but must be revalidated, since their content changes in place. Templates
+ * link them with @{/css/...} and the ResourceUrlEncodingFilter rewrites those links to the
+ * fingerprinted form. The .gz and .br variants produced at build time by
+ * AssetCompressor (src/build/java) are picked per Accept-Encoding.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+    // The content version strategy inserts an MD5 hex digest before the extension
+    private static final Pattern VERSIONED = Pattern.compile("-[0-9a-f]{32}\\.[^/]+$");
+    static final String VERSIONED_CACHE_CONTROL =
+            CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable().getHeaderValue();
+    static final String UNVERSIONED_CACHE_CONTROL = CacheControl.noCache().cachePublic().getHeaderValue();
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        // No cache control here: it would apply to plain and versioned URLs alike, so the
+        // interceptor below picks it per request
+        registry.addResourceHandler("/css/**")
+                .addResourceLocations("classpath:/static/css/")
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AssetCacheInterceptor()).addPathPatterns("/css/**");
+    }
+
+    static boolean isVersioned(String path) {
+        return VERSIONED.matcher(path).find();
+    }
+
+    /**
+     * Sets Cache-Control on stylesheets: immutable for fingerprinted URLs, revalidate otherwise
+     */
+    static class AssetCacheInterceptor implements HandlerInterceptor {
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            response.setHeader(HttpHeaders.CACHE_CONTROL, isVersioned(request.getRequestURI())
+                    ? VERSIONED_CACHE_CONTROL : UNVERSIONED_CACHE_CONTROL);
+            return true;
+        }
+    }
+
+    /**
+     * Rewrites resource links in rendered templates to their fingerprinted URLs
+     */
+    @Bean
+    public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+        return new ResourceUrlEncodingFilter();
+    }
+}
@@ -0,0 +1,553 @@
+package com.dietmaker;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Compressed weight time series for a single user.
+ *
+ * Samples are kept one per day. The newest samples live in a small open buffer of
+ * primitive arrays, allocated on the first weigh-in and grown as needed so an empty history
+ * costs next to nothing. Once it reaches a block's worth it is sealed into an immutable
+ * block where days are delta-of-delta encoded and weights are XOR encoded against the
+ * previous value (the scheme used by Facebook's Gorilla TSDB). A typical daily weigh-in series
+ * compresses to a few bits per sample, so long histories for many users stay small.
+ *
+ * Every sealed block also keeps running sums of its samples, which lets range
+ * averages and trend lines skip decoding blocks that lie entirely inside the range.
+ *
+ * {@link #toBytes()} gives the whole history in the same compressed form (the open buffer
+ * sealed as one more block), which is how it is stored and replicated with a
+ * {@link UserRecord}.
+ *
+ * Not thread-safe; callers sharing a history across threads synchronize on it.
+ */
+public class WeightHistory {
+    static final int BLOCK_SIZE = 128;
+    private static final int INITIAL_OPEN_SIZE = 8;
+    private static final int[] NO_DAYS = new int[0];
+    private static final double[] NO_WEIGHTS = new double[0];
+
+    private final List<Block> blocks;
+    private int[] openDays;
+    private double[] openWeights;
+    private int openCount;
+
+    public WeightHistory() {
+        this.blocks = new ArrayList<>();
+        this.openDays = NO_DAYS;
+        this.openWeights = NO_WEIGHTS;
+        this.openCount = 0;
+    }
+
+    /**
+     * A single weigh-in
+     */
+    public record Sample(LocalDate date, double weight) {
+    }
+
+    /**
+     * Average weight over a calendar bucket (week or month) starting at {@code start}
+     */
+    public record Bucket(LocalDate start, double averageWeight, int samples) {
+    }
+
+    /**
+     * Record a weigh-in. Dates must not go backwards; recording the same day twice
+     * replaces the earlier value.
+     */
+    public void record(LocalDate date, double weight) {
+        record((int) date.toEpochDay(), weight);
+    }
+
+    private void record(int day, double weight) {
+        if (openCount > 0) {
+            int lastDay = openDays[openCount - 1];
+            if (day == lastDay) {
+                openWeights[openCount - 1] = weight;
+                return;
+            }
+            if (day < lastDay) {
+                throw new IllegalArgumentException("Weight samples must be recorded in date order: "
+                                                   + LocalDate.ofEpochDay(day) + " is before "
+                                                   + LocalDate.ofEpochDay(lastDay));
+            }
+        }
+        if (openCount == BLOCK_SIZE) {
+            blocks.add(Block.seal(openDays, openWeights, openCount));
+            openCount = 0;
+        }
+        if (openCount == openDays.length) {
+            int capacity = Math.min(BLOCK_SIZE, Math.max(INITIAL_OPEN_SIZE, openDays.length * 2));
+            openDays = Arrays.copyOf(openDays, capacity);
+            openWeights = Arrays.copyOf(openWeights, capacity);
+        }
+        openDays[openCount] = day;
+        openWeights[openCount] = weight;
+        openCount++;
+    }
+
+    public int size() {
+        return blocks.size() * BLOCK_SIZE + openCount;
+    }
+
+    public boolean isEmpty() {
+        return openCount == 0;
+    }
+
+    /**
+     * Most recent weigh-in, or null if nothing has been recorded
+     */
+    public Sample latest() {
+        if (openCount == 0) {
+            return null;
+        }
+        return new Sample(LocalDate.ofEpochDay(openDays[openCount - 1]), openWeights[openCount - 1]);
+    }
+
+    /**
+     * All weigh-ins between {@code from} and {@code to}, both inclusive
+     */
+    public List<Sample> range(LocalDate from, LocalDate to) {
+        List<Sample> samples = new ArrayList<>();
+        forEachInRange((int) from.toEpochDay(), (int) to.toEpochDay(),
+                       (day, weight) -> samples.add(new Sample(LocalDate.ofEpochDay(day), weight)));
+        return samples;
+    }
+
+    /**
+     * BMI for every weigh-in between {@code from} and {@code to}, for a fixed height in cm
+     */
+    public List<Sample> bmiRange(LocalDate from, LocalDate to, double height) {
+        double heightInMeters = height / 100.0;
+        double divisor = heightInMeters * heightInMeters;
+        List<Sample> samples = new ArrayList<>();
+        forEachInRange((int) from.toEpochDay(), (int) to.toEpochDay(),
+                       (day, weight) -> samples.add(new Sample(LocalDate.ofEpochDay(day), weight / divisor)));
+        return samples;
+    }
+
+    /**
+     * Weekly (Monday-based) average weights between {@code from} and {@code to}
+     */
+    public List<Bucket> weeklyAverages(LocalDate from, LocalDate to) {
+        return downsample(from, to, false);
+    }
+
+    /**
+     * Calendar-month average weights between {@code from} and {@code to}
+     */
+    public List<Bucket> monthlyAverages(LocalDate from, LocalDate to) {
+        return downsample(from, to, true);
+    }
+
+    /**
+     * Least-squares slope of weight over time in kg per day, or NaN with fewer than two samples
+     */
+    public double trend(LocalDate from, LocalDate to) {
+        int fromDay = (int) from.toEpochDay();
+        int toDay = (int) to.toEpochDay();
+        Sums sums = new Sums();
+        for (Block block : blocks) {
+            if (block.lastDay < fromDay || block.firstDay > toDay) {
+                continue;
+            }
+            if (block.firstDay >= fromDay && block.lastDay <= toDay) {
+                sums.add(block.sums);
+            } else {
+                block.decode(fromDay, toDay, sums::add);
+            }
+        }
+        for (int i = 0; i < openCount; i++) {
+            if (openDays[i] >= fromDay && openDays[i] <= toDay) {
+                sums.add(openDays[i], openWeights[i]);
+            }
+        }
+        return sums.slope();
+    }
+
+    /**
+     * Approximate retained size of the compressed history in bytes
+     */
+    public long compressedBytes() {
+        long bytes = (long) openDays.length * Integer.BYTES + (long) openWeights.length * Double.BYTES;
+        for (Block block : blocks) {
+            bytes += (long) block.bits.length * Long.BYTES + Block.HEADER_BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * The whole history in compressed binary form, for {@link #readFrom}
+     */
+    public byte[] toBytes() {
+        List<Block> all = new ArrayList<>(blocks);
+        if (openCount > 0) {
+            all.add(Block.seal(openDays, openWeights, openCount));
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(all.size());
+            for (Block block : all) {
+                out.writeInt(block.firstDay);
+                out.writeInt(block.count);
+                out.writeInt(block.bits.length);
+                for (long word : block.bits) {
+                    out.writeLong(word);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not thrown by an in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Append the samples of a history encoded with {@link #toBytes}; they must not be
+     * older than the samples already recorded
+     *
+     * @throws IllegalArgumentException if the data is not an encoded history
+     */
+    public void readFrom(byte[] encoded) {
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+            int blockCount = in.readInt();
+            for (int b = 0; b < blockCount; b++) {
+                int firstDay = in.readInt();
+                int count = in.readInt();
+                int words = in.readInt();
+                if (count < 1 || count > BLOCK_SIZE || words < 1 || words > in.available() / Long.BYTES) {
+                    throw new IllegalArgumentException("Corrupt weight history block " + b);
+                }
+                long[] bits = new long[words];
+                for (int w = 0; w < words; w++) {
+                    bits[w] = in.readLong();
+                }
+                new Block(firstDay, Integer.MAX_VALUE, count, bits, null)
+                        .decode(Integer.MIN_VALUE, Integer.MAX_VALUE, this::record);
+            }
+        } catch (IOException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Corrupt weight history: " + e.getMessage(), e);
+        }
+    }
+
+    private List<Bucket> downsample(LocalDate from, LocalDate to, boolean monthly) {
+        List<Bucket> buckets = new ArrayList<>();
+        long[] current = {Long.MIN_VALUE};
+        double[] total = {0};
+        int[] count = {0};
+        forEachInRange((int) from.toEpochDay(), (int) to.toEpochDay(), (day, weight) -> {
+            long bucket = bucketStart(day, monthly);
+            if (bucket != current[0]) {
+                if (count[0] > 0) {
+                    buckets.add(new Bucket(LocalDate.ofEpochDay(current[0]), total[0] / count[0], count[0]));
+                }
+                current[0] = bucket;
+                total[0] = 0;
+                count[0] = 0;
+            }
+            total[0] += weight;
+            count[0]++;
+        });
+        if (count[0] > 0) {
+            buckets.add(new Bucket(LocalDate.ofEpochDay(current[0]), total[0] / count[0], count[0]));
+        }
+        return buckets;
+    }
+
+    private static long bucketStart(int day, boolean monthly) {
+        LocalDate date = LocalDate.ofEpochDay(day);
+        if (monthly) {
+            return date.withDayOfMonth(1).toEpochDay();
+        }
+        return date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY)).toEpochDay();
+    }
+
+    private void forEachInRange(int fromDay, int toDay, SampleConsumer consumer) {
+        int first = firstCandidateBlock(fromDay);
+        for (int b = first; b < blocks.size(); b++) {
+            Block block = blocks.get(b);
+            if (block.firstDay > toDay) {
+                return;
+            }
+            block.decode(fromDay, toDay, consumer);
+        }
+        for (int i = 0; i < openCount; i++) {
+            int day = openDays[i];
+            if (day > toDay) {
+                return;
+            }
+            if (day >= fromDay) {
+                consumer.accept(day, openWeights[i]);
+            }
+        }
+    }
+
+    /**
+     * Binary search for the first sealed block whose last day is on or after {@code fromDay}
+     */
+    private int firstCandidateBlock(int fromDay) {
+        int low = 0;
+        int high = blocks.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (blocks.get(mid).lastDay < fromDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    @FunctionalInterface
+    interface SampleConsumer {
+        void accept(int day, double weight);
+    }
+
+    /**
+     * Running sums for a least-squares fit. Days are shifted by a fixed origin to keep
+     * the squared terms well inside double precision.
+     */
+    static final class Sums {
+        private static final int ORIGIN = 18_000; // 2019-04-14, close to any realistic sample
+
+        int n;
+        double sumX;
+        double sumY;
+        double sumXY;
+        double sumXX;
+
+        void add(int day, double weight) {
+            double x = day - ORIGIN;
+            n++;
+            sumX += x;
+            sumY += weight;
+            sumXY += x * weight;
+            sumXX += x * x;
+        }
+
+        void add(Sums other) {
+            n += other.n;
+            sumX += other.sumX;
+            sumY += other.sumY;
+            sumXY += other.sumXY;
+            sumXX += other.sumXX;
+        }
+
+        double slope() {
+            double denominator = n * sumXX - sumX * sumX;
+            if (n < 2 || denominator == 0) {
+                return Double.NaN;
+            }
+            return (n * sumXY - sumX * sumY) / denominator;
+        }
+    }
+
+    /**
+     * Immutable, compressed run of consecutive samples
+     */
+    static final class Block {
+        static final int HEADER_BYTES = 3 * Integer.BYTES + 5 * Double.BYTES;
+
+        final int firstDay;
+        final int lastDay;
+        final int count;
+        final long[] bits;
+        final Sums sums;
+
+        private Block(int firstDay, int lastDay, int count, long[] bits, Sums sums) {
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+            this.count = count;
+            this.bits = bits;
+            this.sums = sums;
+        }
+
+        static Block seal(int[] days, double[] weights, int count) {
+            BitWriter out = new BitWriter(count);
+            Sums sums = new Sums();
+            out.write(Double.doubleToRawLongBits(weights[0]), 64);
+            sums.add(days[0], weights[0]);
+
+            int previousDelta = 0;
+            long previousBits = Double.doubleToRawLongBits(weights[0]);
+            int previousLeading = Integer.MAX_VALUE;
+            int previousTrailing = 0;
+            for (int i = 1; i < count; i++) {
+                int delta = days[i] - days[i - 1];
+                writeDeltaOfDelta(out, delta - previousDelta);
+                previousDelta = delta;
+
+                long valueBits = Double.doubleToRawLongBits(weights[i]);
+                long xor = valueBits ^ previousBits;
+                if (xor == 0) {
+                    out.write(0, 1);
+                } else {
+                    int leading = Math.min(Long.numberOfLeadingZeros(xor), 31);
+                    int trailing = Long.numberOfTrailingZeros(xor);
+                    if (leading >= previousLeading && trailing >= previousTrailing) {
+                        out.write(0b10, 2);
+                        out.write(xor >>> previousTrailing, 64 - previousLeading - previousTrailing);
+                    } else {
+                        int significant = 64 - leading - trailing;
+                        out.write(0b11, 2);
+                        out.write(leading, 5);
+                        out.write(significant - 1, 6);
+                        out.write(xor >>> trailing, significant);
+                        previousLeading = leading;
+                        previousTrailing = trailing;
+                    }
+                }
+                previousBits = valueBits;
+                sums.add(days[i], weights[i]);
+            }
+            return new Block(days[0], days[count - 1], count, out.toArray(), sums);
+        }
+
+        private static void writeDeltaOfDelta(BitWriter out, int deltaOfDelta) {
+            long zigzag = (deltaOfDelta << 1) ^ (deltaOfDelta >> 31);
+            zigzag &= 0xFFFFFFFFL;
+            if (zigzag == 0) {
+                out.write(0, 1);
+            } else if (zigzag < (1 << 7)) {
+                out.write(0b10, 2);
+                out.write(zigzag, 7);
+            } else if (zigzag < (1 << 9)) {
+                out.write(0b110, 3);
+                out.write(zigzag, 9);
+            } else if (zigzag < (1 << 12)) {
+                out.write(0b1110, 4);
+                out.write(zigzag, 12);
+            } else {
+                out.write(0b1111, 4);
+                out.write(zigzag, 32);
+            }
+        }
+
+        private static int readDeltaOfDelta(BitReader in) {
+            int zigzag;
+            if (in.read(1) == 0) {
+                return 0;
+            } else if (in.read(1) == 0) {
+                zigzag = (int) in.read(7);
+            } else if (in.read(1) == 0) {
+                zigzag = (int) in.read(9);
+            } else if (in.read(1) == 0) {
+                zigzag = (int) in.read(12);
+            } else {
+                zigzag = (int) in.read(32);
+            }
+            return (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+
+        /**
+         * Decode samples in [fromDay, toDay], stopping early once past the range
+         */
+        void decode(int fromDay, int toDay, SampleConsumer consumer) {
+            BitReader in = new BitReader(bits);
+            long valueBits = in.read(64);
+            int day = firstDay;
+            int delta = 0;
+            int leading = 0;
+            int trailing = 0;
+            for (int i = 0; i < count; i++) {
+                if (i > 0) {
+                    delta += readDeltaOfDelta(in);
+                    day += delta;
+                    if (in.read(1) == 1) {
+                        if (in.read(1) == 1) {
+                            leading = (int) in.read(5);
+                            int significant = (int) in.read(6) + 1;
+                            trailing = 64 - leading - significant;
+                        }
+                        long xor = in.read(64 - leading - trailing) << trailing;
+                        valueBits ^= xor;
+                    }
+                }
+                if (day > toDay) {
+                    return;
+                }
+                if (day >= fromDay) {
+                    consumer.accept(day, Double.longBitsToDouble(valueBits));
+                }
+            }
+        }
+    }
+
+    static final class BitWriter {
+        private long[] words;
+        private int position;
+
+        BitWriter(int expectedSamples) {
+            this.words = new long[Math.max(2, expectedSamples / 4)];
+        }
+
+        /**
+         * Append the low {@code length} bits of {@code value}, most significant first
+         */
+        void write(long value, int length) {
+            if (length == 0) {
+                return;
+            }
+            int needed = (position + length + 63) >>> 6;
+            if (needed > words.length) {
+                words = Arrays.copyOf(words, Math.max(needed, words.length * 2));
+            }
+            if (length < 64) {
+                value &= (1L << length) - 1;
+            }
+            int offset = position & 63;
+            int index = position >>> 6;
+            int free = 64 - offset;
+            if (length <= free) {
+                words[index] |= value << (free - length);
+            } else {
+                int spill = length - free;
+                words[index] |= value >>> spill;
+                words[index + 1] |= value << (64 - spill);
+            }
+            position += length;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(words, (position + 63) >>> 6);
+        }
+    }
+
+    static final class BitReader {
+        private final long[] words;
+        private int position;
+
+        BitReader(long[] words) {
+            this.words = words;
+        }
+
+        long read(int length) {
+            if (length == 0) {
+                return 0;
+            }
+            int offset = position & 63;
+            int index = position >>> 6;
+            int available = 64 - offset;
+            long value;
+            if (length <= available) {
+                value = words[index] >>> (available - length);
+            } else {
+                int spill = length - available;
+                value = (words[index] << spill) | (words[index + 1] >>> (64 - spill));
+            }
+            position += length;
+            return length == 64 ? value : value & ((1L << length) - 1);
+        }
+    }
+}
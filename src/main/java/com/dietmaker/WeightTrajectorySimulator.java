@@ -0,0 +1,264 @@
+package com.dietmaker;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Monte Carlo projection of a user's weight when following a plan with partial adherence.
+ *
+ * Each scenario walks day by day: on adherent days the user eats the plan's calories
+ * (with some portion noise), on the other days they eat around their maintenance
+ * calories plus a surplus. The energy balance against the user's TDEE, recomputed
+ * from the current simulated weight with the same BMR model as {@link User}, moves
+ * the weight at roughly 7700 kcal per kg.
+ *
+ * Scenarios are split across cores with fork-join; every task gets its own
+ * {@link SplittableRandom} split from the seed, so results are reproducible for a
+ * given seed regardless of how work is scheduled. The inner loop only touches
+ * primitives and writes weekly weights into one preallocated array.
+ */
+public class WeightTrajectorySimulator {
+    static final double KCAL_PER_KG = 7700.0;
+    static final double PORTION_NOISE = 0.05;      // stddev of intake on plan days, as a fraction
+    static final double OFF_PLAN_SURPLUS = 0.20;   // average overeating on off-plan days, as a fraction of TDEE
+    static final double OFF_PLAN_NOISE = 0.15;     // stddev of intake on off-plan days, as a fraction of TDEE
+    private static final int SCENARIOS_PER_TASK = 64;
+    private static final int USERS_PER_TASK = 4;
+
+    private final int scenarios;
+    private final long seed;
+    private final ForkJoinPool pool;
+
+    public WeightTrajectorySimulator(int scenarios, long seed) {
+        this(scenarios, seed, ForkJoinPool.commonPool());
+    }
+
+    public WeightTrajectorySimulator(int scenarios, long seed, ForkJoinPool pool) {
+        if (scenarios < 1) {
+            throw new IllegalArgumentException("At least one scenario is required");
+        }
+        this.scenarios = scenarios;
+        this.seed = seed;
+        this.pool = pool;
+    }
+
+    /**
+     * Weekly weight percentiles across all simulated scenarios. Index 0 is the starting weight.
+     */
+    public static class Projection {
+        private final double[] lower;   // 5th percentile
+        private final double[] median;
+        private final double[] upper;   // 95th percentile
+        private final double[] mean;
+
+        Projection(double[] lower, double[] median, double[] upper, double[] mean) {
+            this.lower = lower;
+            this.median = median;
+            this.upper = upper;
+            this.mean = mean;
+        }
+
+        public int getWeeks() {
+            return median.length - 1;
+        }
+
+        public double getLower(int week) {
+            return lower[week];
+        }
+
+        public double getMedian(int week) {
+            return median[week];
+        }
+
+        public double getUpper(int week) {
+            return upper[week];
+        }
+
+        public double getMean(int week) {
+            return mean[week];
+        }
+
+        @Override
+        public String toString() {
+            int last = getWeeks();
+            return String.format("Week %d: %.1f kg (90%% band %.1f - %.1f kg)",
+                                 last, median[last], lower[last], upper[last]);
+        }
+    }
+
+    /**
+     * Project the user's weight over {@code weeks} weeks of a plan providing
+     * {@code planCalories} per day, followed on a fraction {@code adherence} of days
+     */
+    public Projection simulate(User user, double planCalories, double adherence, int weeks) {
+        double[] trajectories = new double[scenarios * (weeks + 1)];
+        pool.invoke(new ScenarioTask(user, planCalories, adherence, weeks, trajectories,
+                                     0, scenarios, new SplittableRandom(seed)));
+        return summarize(trajectories, weeks);
+    }
+
+    /**
+     * Project the user's weight when following a diet plan at its average daily calories
+     */
+    public Projection simulate(User user, DietPlan plan, double adherence, int weeks) {
+        return simulate(user, plan.getAverageDailyCalories(), adherence, weeks);
+    }
+
+    /**
+     * Project many users at once, each against their own plan calories. Users are
+     * processed in parallel and so are the scenarios of each user.
+     */
+    public Projection[] simulateAll(List<User> users, double[] planCalories, double adherence, int weeks) {
+        if (users.size() != planCalories.length) {
+            throw new IllegalArgumentException("Expected one plan calorie value per user");
+        }
+        Projection[] projections = new Projection[users.size()];
+        SplittableRandom[] randoms = new SplittableRandom[users.size()];
+        SplittableRandom root = new SplittableRandom(seed);
+        for (int i = 0; i < randoms.length; i++) {
+            randoms[i] = root.split();
+        }
+        pool.invoke(new BatchTask(users, planCalories, adherence, weeks, randoms, projections, 0, users.size()));
+        return projections;
+    }
+
+    private final class BatchTask extends RecursiveAction {
+        private final List<User> users;
+        private final double[] planCalories;
+        private final double adherence;
+        private final int weeks;
+        private final SplittableRandom[] randoms;
+        private final Projection[] projections;
+        private final int from;
+        private final int to;
+
+        BatchTask(List<User> users, double[] planCalories, double adherence, int weeks,
+                  SplittableRandom[] randoms, Projection[] projections, int from, int to) {
+            this.users = users;
+            this.planCalories = planCalories;
+            this.adherence = adherence;
+            this.weeks = weeks;
+            this.randoms = randoms;
+            this.projections = projections;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= USERS_PER_TASK) {
+                for (int i = from; i < to; i++) {
+                    double[] trajectories = new double[scenarios * (weeks + 1)];
+                    new ScenarioTask(users.get(i), planCalories[i], adherence, weeks, trajectories,
+                                     0, scenarios, randoms[i]).invoke();
+                    projections[i] = summarize(trajectories, weeks);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BatchTask(users, planCalories, adherence, weeks, randoms, projections, from, mid),
+                      new BatchTask(users, planCalories, adherence, weeks, randoms, projections, mid, to));
+        }
+    }
+
+    /**
+     * Simulates scenarios [from, to) into a shared trajectory array laid out as
+     * scenario-major rows of {@code weeks + 1} weekly weights
+     */
+    private static final class ScenarioTask extends RecursiveAction {
+        private final User user;
+        private final double planCalories;
+        private final double adherence;
+        private final int weeks;
+        private final double[] trajectories;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        ScenarioTask(User user, double planCalories, double adherence, int weeks,
+                     double[] trajectories, int from, int to, SplittableRandom random) {
+            this.user = user;
+            this.planCalories = planCalories;
+            this.adherence = adherence;
+            this.weeks = weeks;
+            this.trajectories = trajectories;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SCENARIOS_PER_TASK) {
+                run();
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            SplittableRandom left = random.split();
+            SplittableRandom right = random.split();
+            invokeAll(new ScenarioTask(user, planCalories, adherence, weeks, trajectories, from, mid, left),
+                      new ScenarioTask(user, planCalories, adherence, weeks, trajectories, mid, to, right));
+        }
+
+        private void run() {
+            // TDEE is linear in weight: multiplier * (10 * weight + rest of the BMR terms)
+            User.Profile profile = user.getProfile();
+            double multiplier = profile.getActivityMultiplier();
+            double tdeePerKg = 10 * multiplier;
+            double tdeeBase = User.calculateBMR(0, profile.getHeight(), profile.getAge()) * multiplier;
+            double startWeight = profile.getWeight();
+            int stride = weeks + 1;
+
+            for (int s = from; s < to; s++) {
+                int row = s * stride;
+                double weight = startWeight;
+                trajectories[row] = weight;
+                for (int week = 1; week <= weeks; week++) {
+                    for (int day = 0; day < 7; day++) {
+                        double tdee = tdeeBase + tdeePerKg * weight;
+                        double intake;
+                        if (random.nextDouble() < adherence) {
+                            intake = planCalories * (1 + PORTION_NOISE * random.nextGaussian());
+                        } else {
+                            intake = tdee * (1 + OFF_PLAN_SURPLUS + OFF_PLAN_NOISE * random.nextGaussian());
+                        }
+                        weight += (intake - tdee) / KCAL_PER_KG;
+                    }
+                    trajectories[row + week] = weight;
+                }
+            }
+        }
+    }
+
+    private Projection summarize(double[] trajectories, int weeks) {
+        int stride = weeks + 1;
+        double[] lower = new double[stride];
+        double[] median = new double[stride];
+        double[] upper = new double[stride];
+        double[] mean = new double[stride];
+        double[] column = new double[scenarios];
+        for (int week = 0; week < stride; week++) {
+            double sum = 0;
+            for (int s = 0; s < scenarios; s++) {
+                column[s] = trajectories[s * stride + week];
+                sum += column[s];
+            }
+            Arrays.sort(column);
+            lower[week] = percentile(column, 0.05);
+            median[week] = percentile(column, 0.50);
+            upper[week] = percentile(column, 0.95);
+            mean[week] = sum / scenarios;
+        }
+        return new Projection(lower, median, upper, mean);
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        double rank = p * (sorted.length - 1);
+        int below = (int) Math.floor(rank);
+        int above = Math.min(below + 1, sorted.length - 1);
+        return sorted[below] + (rank - below) * (sorted[above] - sorted[below]);
+    }
+}
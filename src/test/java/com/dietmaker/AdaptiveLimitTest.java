@@ -0,0 +1,88 @@
+package com.dietmaker;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for the AdaptiveLimit class
+ */
+public class AdaptiveLimitTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(5);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(50);
+
+    /**
+     * Run rounds of requests that keep the current limit busy, all taking {@code rttNanos}
+     */
+    private static void saturate(AdaptiveLimit limit, long rttNanos, int rounds) {
+        for (int round = 0; round < rounds; round++) {
+            int slots = limit.getLimit();
+            for (int i = 0; i < slots; i++) {
+                assertTrue(limit.tryAcquire());
+            }
+            for (int i = 0; i < slots; i++) {
+                limit.release(rttNanos);
+            }
+        }
+    }
+
+    @Test
+    public void testRefusesBeyondLimitAndCountsShed() {
+        AdaptiveLimit limit = new AdaptiveLimit("api", 1, 3, 10);
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+
+        AdaptiveLimit.Stats stats = limit.getStats();
+        assertEquals(3, stats.inFlight());
+        assertEquals(3, stats.accepted());
+        assertEquals(2, stats.shed());
+
+        limit.release(FAST);
+        assertTrue(limit.tryAcquire());
+    }
+
+    @Test
+    public void testGrowsWhileLatencyHolds() {
+        AdaptiveLimit limit = new AdaptiveLimit("pages", 2, 10, 100);
+        saturate(limit, FAST, 20);
+        assertTrue(limit.getLimit() > 20, "limit " + limit.getLimit());
+
+        saturate(limit, FAST, 200);
+        assertEquals(100, limit.getLimit());
+    }
+
+    @Test
+    public void testShrinksWhenLatencyRises() {
+        AdaptiveLimit limit = new AdaptiveLimit("pages", 2, 10, 100);
+        saturate(limit, FAST, 40);
+        int healthy = limit.getLimit();
+
+        saturate(limit, SLOW, 10);
+        assertTrue(limit.getLimit() < healthy / 2, healthy + " -> " + limit.getLimit());
+
+        saturate(limit, SLOW * 10, 200);
+        assertTrue(limit.getLimit() >= 2);
+    }
+
+    @Test
+    public void testIdleTrafficDoesNotRaiseLimit() {
+        AdaptiveLimit limit = new AdaptiveLimit("api", 1, 10, 100);
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limit.tryAcquire());
+            limit.release(FAST);
+        }
+        assertEquals(10, limit.getLimit());
+    }
+
+    @Test
+    public void testRejectsInconsistentLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimit("api", 0, 1, 2));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimit("api", 5, 4, 10));
+        assertThrows(IllegalArgumentException.class, () -> new AdaptiveLimit("api", 1, 20, 10));
+    }
+}
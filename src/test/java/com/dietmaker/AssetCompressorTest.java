@@ -0,0 +1,35 @@
+package com.dietmaker;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Unit tests for the AssetCompressor class
+ */
+public class AssetCompressorTest {
+
+    @Test
+    public void testIsCompressible() {
+        assertTrue(AssetCompressor.isCompressible(Paths.get("static/css/index.css")));
+        assertTrue(AssetCompressor.isCompressible(Paths.get("static/js/app.js")));
+        assertFalse(AssetCompressor.isCompressible(Paths.get("static/css/index.css.gz")));
+        assertFalse(AssetCompressor.isCompressible(Paths.get("static/img/logo.png")));
+        assertFalse(AssetCompressor.isCompressible(Paths.get("static/css")));
+    }
+
+    @Test
+    public void testGzipRoundTrip() throws IOException {
+        byte[] original = ".meal-card { margin: 2px; }\n".repeat(50).getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = AssetCompressor.gzip(original);
+        assertTrue(compressed.length < original.length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertArrayEquals(original, in.readAllBytes());
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package com.dietmaker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for the CatalogService class
+ */
+public class CatalogServiceTest {
+
+    private static final String KETO = "plan | Keto Diet | Low carb\nLunch | Steak Salad | Steak on greens | 600 | 45 | 8 | 40\n";
+
+    @TempDir
+    Path catalogDir;
+
+    private CatalogService service;
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        if (service != null) {
+            service.close();
+        }
+    }
+
+    @Test
+    public void testWithoutDirectoryServesDefaults() throws IOException {
+        service = new CatalogService("");
+        assertNotNull(service.current().getPlan("balanced"));
+        assertFalse(service.reload());
+    }
+
+    @Test
+    public void testMissingDirectoryIsRejected() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> new CatalogService(catalogDir.resolve("missing").toString()));
+    }
+
+    @Test
+    public void testReloadPublishesNewVersionAndKeepsOldOnError() throws IOException {
+        service = new CatalogService(catalogDir.toString());
+        MealCatalog initial = service.current();
+        assertNull(initial.getPlan("keto"));
+
+        Files.writeString(catalogDir.resolve("keto.plan"), KETO);
+        assertTrue(service.reload());
+        MealCatalog reloaded = service.current();
+        assertTrue(reloaded.getVersion() > initial.getVersion());
+        assertNotNull(reloaded.getPlan("keto"));
+        assertNull(initial.getPlan("keto"), "published snapshots must not change");
+
+        Files.writeString(catalogDir.resolve("broken.plan"), "Lunch | no plan line | x | 1 | 1 | 1 | 1\n");
+        assertFalse(service.reload());
+        assertSame(reloaded, service.current());
+    }
+
+    private static Meal meal(MealCatalog catalog, String type, String name) {
+        return catalog.getPlan(type).getAllMeals().stream().filter(m -> m.getName().equals(name)).findFirst().orElseThrow();
+    }
+
+    @Test
+    public void testIngredientChangeReachesServedMeals() throws IOException {
+        service = new CatalogService(catalogDir.toString());
+        service.updateRecipes(book -> {
+            book.addIngredient("Tahini", 595, 17.0, 21.0, 54.0);
+            book.addIngredient("Lemon Juice", 22, 0.4, 7.0, 0.2);
+            book.addIngredient("Quinoa", 120, 4.4, 21.3, 1.9);
+            book.addIngredient("Chickpeas", 164, 8.9, 27.4, 2.6);
+            book.addRecipe("Tahini Dressing", Map.of("Tahini", 30.0, "Lemon Juice", 20.0));
+            book.addRecipe("Quinoa Buddha Bowl", Map.of("Quinoa", 185.0, "Chickpeas", 100.0, "Tahini Dressing", 25.0));
+        });
+        MealCatalog before = service.current();
+        Meal bowl = meal(before, "vegetarian", "Quinoa Buddha Bowl");
+        assertEquals(477, bowl.getCalories()); // 222 + 164 + half the dressing's 182.9
+        assertEquals("Lunch", bowl.getMealType());
+
+        assertEquals(List.of("Tahini Dressing", "Quinoa Buddha Bowl"),
+                     service.updateIngredient("Tahini", 700, 17.0, 21.0, 54.0));
+        MealCatalog after = service.current();
+        assertTrue(after.getVersion() > before.getVersion());
+        assertEquals(493, meal(after, "vegetarian", "Quinoa Buddha Bowl").getCalories());
+        assertEquals(477, meal(before, "vegetarian", "Quinoa Buddha Bowl").getCalories()); // old snapshot unchanged
+        assertSame(before.getPlan("balanced"), after.getPlan("balanced")); // no recipe meal, not rebuilt
+
+        // Plans loaded from files keep the rolled-up nutrition
+        Files.writeString(catalogDir.resolve("keto.plan"), KETO);
+        assertTrue(service.reload());
+        assertEquals(493, meal(service.current(), "vegetarian", "Quinoa Buddha Bowl").getCalories());
+    }
+
+    @Test
+    public void testWatcherPicksUpChanges() throws Exception {
+        service = new CatalogService(catalogDir.toString());
+        long initialVersion = service.current().getVersion();
+
+        Files.writeString(catalogDir.resolve("keto.plan"), KETO);
+        long deadline = System.currentTimeMillis() + 15_000;
+        while (service.current().getPlan("keto") == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertNotNull(service.current().getPlan("keto"));
+        assertTrue(service.current().getVersion() > initialVersion);
+    }
+}
@@ -0,0 +1,47 @@
+package com.dietmaker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+
+/**
+ * Unit tests for ClusterConfig: member validation and the cluster secret check
+ */
+public class ClusterConfigTest {
+
+    private static int status(String secret, String presented) throws IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/cluster/members");
+        if (presented != null) {
+            request.addHeader(HttpClusterTransport.SECRET_HEADER, presented);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        boolean allowed = new ClusterConfig.ClusterAuthInterceptor(secret).preHandle(request, response, new Object());
+        assertEquals(allowed, response.getStatus() == 200);
+        return response.getStatus();
+    }
+
+    @Test
+    public void testClusterEndpointsRequireTheSecret() throws IOException {
+        assertEquals(200, status("s3cret", "s3cret"));
+        assertEquals(403, status("s3cret", "wrong"));
+        assertEquals(403, status("s3cret", null));
+        // Without a configured secret the endpoints are closed, whatever is sent
+        assertEquals(403, status("", ""));
+        assertEquals(403, status("", "anything"));
+    }
+
+    @Test
+    public void testSeveralMembersNeedASecret() {
+        ObjectMapper mapper = new ObjectMapper();
+        assertThrows(IllegalStateException.class,
+                     () -> new ClusterConfig("").clusterNode("a:1", "a:1,b:2", 2, mapper));
+        assertThrows(IllegalStateException.class,
+                     () -> new ClusterConfig("s3cret").clusterNode("c:3", "a:1,b:2", 2, mapper));
+        assertEquals(2, new ClusterConfig("s3cret").clusterNode("a:1", "a:1,b:2", 2, mapper).getRing().getNodes().size());
+        assertEquals(1, new ClusterConfig("").clusterNode("a:1", "", 2, mapper).getRing().getNodes().size());
+    }
+}
@@ -0,0 +1,282 @@
+package com.dietmaker;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for ClusterNode, with several nodes in one JVM over LocalClusterTransport
+ */
+public class ClusterNodeTest {
+
+    private static final int USERS = 300;
+    private static final int REPLICATION_FACTOR = 2;
+
+    private LocalClusterTransport transport;
+    private List<ClusterNode> nodes;
+
+    @BeforeEach
+    public void setUp() {
+        transport = new LocalClusterTransport();
+        nodes = new ArrayList<>();
+        List<String> members = List.of("n1", "n2", "n3");
+        for (String id : members) {
+            nodes.add(transport.start(id, members, REPLICATION_FACTOR));
+        }
+    }
+
+    private static UserRecord record(int i) {
+        return UserRecord.from(new User("user-" + i, 20 + i % 50, 60 + i % 40, 160 + i % 30, "Moderately Active"));
+    }
+
+    private void putAll() {
+        for (int i = 0; i < USERS; i++) {
+            // Writes may arrive at any node
+            nodes.get(i % nodes.size()).put(record(i));
+        }
+    }
+
+    private void assertEveryUserFullyReplicated() {
+        for (int i = 0; i < USERS; i++) {
+            String name = "user-" + i;
+            int copies = 0;
+            for (ClusterNode node : nodes) {
+                UserRecord local = node.getLocal(name);
+                boolean replica = node.getRing().replicasFor(name, REPLICATION_FACTOR).contains(node.getId());
+                assertEquals(replica, local != null, name + " on " + node.getId());
+                copies += local == null ? 0 : 1;
+            }
+            assertEquals(REPLICATION_FACTOR, copies, name);
+        }
+    }
+
+    @Test
+    public void testReadYourWriteFromAnyNode() {
+        putAll();
+        for (int i = 0; i < USERS; i++) {
+            for (ClusterNode node : nodes) {
+                assertEquals(record(i).weight(), node.get("user-" + i).weight());
+            }
+        }
+        assertNull(nodes.get(0).get("nobody"));
+        assertEveryUserFullyReplicated();
+    }
+
+    @Test
+    public void testPrimaryAssignsIncreasingVersions() {
+        UserRecord first = nodes.get(0).put(record(1));
+        UserRecord second = nodes.get(1).put(record(1).withVersion(99, "elsewhere"));
+        assertEquals(1, first.version());
+        assertEquals(2, second.version());
+        for (String replica : nodes.get(0).getRing().replicasFor("user-1", REPLICATION_FACTOR)) {
+            assertEquals(2, transport.getNode(replica).getLocal("user-1").version());
+        }
+        assertEquals("user-1", nodes.get(2).get("user-1").toUser().getName());
+    }
+
+    @Test
+    public void testHistoryAndFavoritesAreReplicated() {
+        User user = new User("user-1", 30, 80.0, 180.0, "Moderately Active");
+        for (int day = 0; day < 200; day++) {
+            user.recordWeight(LocalDate.of(2024, 1, 1).plusDays(day), 80.0 - day * 0.05);
+        }
+        Meal favorite = new Meal("Lentil Curry", "Red lentils", 420, 20.0, 68.0, 6.0, "Dinner");
+        user.addFavoriteMeal(favorite);
+        nodes.get(0).put(UserRecord.from(user));
+
+        // Rebalance onto a new node so the record travels through replication and handover
+        List<String> members = List.of("n1", "n2", "n3", "n4");
+        nodes.add(transport.start("n4", members, REPLICATION_FACTOR));
+        transport.announce(nodes, members);
+
+        for (String replica : nodes.get(0).getRing().replicasFor("user-1", REPLICATION_FACTOR)) {
+            User copy = transport.getNode(replica).getLocal("user-1").toUser();
+            assertEquals(200, copy.getWeightHistory().size());
+            assertEquals(user.getWeightHistory().latest(), copy.getWeightHistory().latest());
+            assertEquals(List.of(favorite), copy.getFavoriteMeals());
+        }
+
+        // The HTTP transport sends the same record as JSON
+        ObjectMapper mapper = new ObjectMapper();
+        UserRecord decoded = assertDoesNotThrow(
+                () -> mapper.readValue(mapper.writeValueAsBytes(UserRecord.from(user)), UserRecord.class));
+        assertEquals(200, decoded.toUser().getWeightHistory().size());
+        assertEquals("Lentil Curry", decoded.favoriteMeals().get(0).name());
+    }
+
+    @Test
+    public void testWriteOnAStaleCopyIsVersionedAboveTheReplicas() {
+        nodes.get(0).put(record(1));
+        List<String> replicas = nodes.get(0).getRing().replicasFor("user-1", REPLICATION_FACTOR);
+        ClusterNode primary = transport.getNode(replicas.get(0));
+        ClusterNode backup = transport.getNode(replicas.get(1));
+
+        // The primary is cut off: the backup takes over and versions a write itself
+        transport.kill(primary.getId());
+        UserRecord heavier = record(1);
+        backup.put(new UserRecord("user-1", heavier.age(), 95.0, heavier.height(), heavier.activityLevel(),
+                                  null, null, heavier.dailyCalorieGoal(), null, null, 0, null));
+        // Back again, the old primary versions a different write on its stale copy; the backup's
+        // copy answered to the push beats it, so the write is versioned again above it
+        transport.revive(primary);
+        UserRecord lighter = primary.putAsPrimary(new UserRecord("user-1", heavier.age(), 55.0, heavier.height(),
+                heavier.activityLevel(), null, null, heavier.dailyCalorieGoal(), null, null, 0, null));
+
+        assertEquals(3, lighter.version());
+        for (ClusterNode replica : List.of(primary, backup)) {
+            assertEquals(lighter, replica.getLocal("user-1"), replica.getId());
+        }
+    }
+
+    @Test
+    public void testJoinRebalancesData() {
+        putAll();
+        List<String> members = List.of("n1", "n2", "n3", "n4");
+        nodes.add(transport.start("n4", members, REPLICATION_FACTOR));
+        transport.announce(nodes, members);
+
+        assertTrue(transport.getNode("n4").localSize() > 0);
+        assertEveryUserFullyReplicated();
+        for (int i = 0; i < USERS; i++) {
+            assertEquals(record(i).age(), nodes.get(i % nodes.size()).get("user-" + i).age());
+        }
+    }
+
+    @Test
+    public void testWriteThroughAFreshlyJoinedPrimaryPersists() {
+        putAll();
+        List<String> members = List.of("n1", "n2", "n3", "n4");
+        ClusterNode joined = transport.start("n4", members, REPLICATION_FACTOR);
+        // Only the new node knows the new ring yet; nothing has been handed to it
+        joined.updateMembers(members);
+        String name = null;
+        for (int i = 0; i < USERS && name == null; i++) {
+            List<String> replicas = joined.getRing().replicasFor("user-" + i, REPLICATION_FACTOR);
+            if (replicas.get(0).equals("n4")) {
+                name = "user-" + i;
+            }
+        }
+        assertNotNull(name);
+        UserRecord before = nodes.get(0).get(name);
+        nodes.get(0).put(before); // an older copy at version 2 on the old replicas
+
+        UserRecord written = joined.put(new UserRecord(name, before.age(), 99.0, before.height(), before.activityLevel(),
+                                                       null, null, before.dailyCalorieGoal(), null, null, 0, null));
+        assertEquals(3, written.version());
+
+        nodes.add(joined);
+        transport.announce(nodes.subList(0, 3), members);
+        for (ClusterNode node : nodes) {
+            assertEquals(99.0, node.get(name).weight(), node.getId());
+        }
+        assertEveryUserFullyReplicated();
+    }
+
+    @Test
+    public void testReplicaWaitingForItsHandoverReadsFromTheOthers() {
+        putAll();
+        List<String> members = List.of("n1", "n2", "n3", "n4");
+        ClusterNode joined = transport.start("n4", members, REPLICATION_FACTOR);
+        joined.updateMembers(members);
+        for (int i = 0; i < USERS; i++) {
+            assertEquals(record(i).age(), joined.get("user-" + i).age(), "user-" + i);
+        }
+        assertEquals(0, joined.localSize());
+        assertNull(joined.get("nobody"));
+    }
+
+    @Test
+    public void testGracefulLeaveHandsDataOver() {
+        putAll();
+        ClusterNode leaving = transport.getNode("n2");
+        transport.announce(nodes, List.of("n1", "n3"));
+        transport.kill("n2");
+        nodes.remove(leaving);
+
+        assertEquals(0, leaving.localSize());
+        assertEveryUserFullyReplicated();
+    }
+
+    @Test
+    public void testFailedHandoverKeepsTheCopyUntilRetried() {
+        putAll();
+        ClusterNode leaving = transport.getNode("n2");
+        ClusterNode unreachable = transport.getNode("n3");
+        transport.kill("n3");
+        transport.announce(List.of(nodes.get(0), leaving), List.of("n1", "n3"));
+        // n3 missed every push, so the leaving node still holds what it had
+        assertTrue(leaving.localSize() > 0);
+
+        transport.revive(unreachable);
+        transport.announce(nodes, List.of("n1", "n3"));
+        transport.kill("n2");
+        nodes.remove(leaving);
+        assertEquals(0, leaving.localSize());
+        assertEveryUserFullyReplicated();
+    }
+
+    @Test
+    public void testCrashedNodeIsCoveredByItsReplicas() {
+        putAll();
+        nodes.remove(transport.getNode("n3"));
+        transport.kill("n3");
+
+        // Reads and writes still succeed before the membership change...
+        for (int i = 0; i < USERS; i++) {
+            assertNotNull(nodes.get(0).get("user-" + i), "user-" + i);
+            assertNotNull(nodes.get(1).put(record(i)));
+        }
+
+        // ...and announcing the smaller cluster restores the replication factor
+        transport.announce(nodes, List.of("n1", "n2"));
+        assertEveryUserFullyReplicated();
+    }
+
+    @Test
+    public void testRejectingPeerIsSkipped() throws IOException {
+        // A peer that refuses every call, as with a mismatched cluster secret
+        HttpServer peer = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        peer.createContext("/cluster/", exchange -> {
+            exchange.sendResponseHeaders(403, -1);
+            exchange.close();
+        });
+        peer.start();
+        try {
+            String peerId = "localhost:" + peer.getAddress().getPort();
+            HttpClusterTransport http = new HttpClusterTransport(new ObjectMapper(), "wrong");
+            ClusterNode node = new ClusterNode("n1", List.of("n1", peerId), 2, http);
+
+            UserRecord stored = assertDoesNotThrow(() -> node.putAsPrimary(record(1)));
+            assertEquals(stored, node.getLocal("user-1"));
+            assertDoesNotThrow(() -> node.updateMembers(List.of("n1", peerId, "n2")));
+            // Not acknowledged by the new replicas, so the only copy is kept
+            assertEquals(stored, node.getLocal("user-1"));
+        } finally {
+            peer.stop(0);
+        }
+    }
+
+    @Test
+    public void testAllReplicasDownIsReported() {
+        putAll();
+        ClusterNode survivor = nodes.get(0);
+        transport.kill("n2");
+        transport.kill("n3");
+        String remote = null;
+        for (int i = 0; i < USERS && remote == null; i++) {
+            if (!survivor.getRing().replicasFor("user-" + i, REPLICATION_FACTOR).contains("n1")) {
+                remote = "user-" + i;
+            }
+        }
+        String name = remote;
+        assertThrows(ClusterNode.ClusterUnavailableException.class, () -> survivor.get(name));
+    }
+}
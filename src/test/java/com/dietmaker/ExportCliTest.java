@@ -0,0 +1,91 @@
+package com.dietmaker;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Unit tests for ExportCli, against stub nodes serving fixed export bodies
+ */
+public class ExportCliTest {
+
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @AfterEach
+    public void tearDown() {
+        servers.forEach(server -> server.stop(0));
+    }
+
+    /**
+     * Start a node answering exports with the given status and body; returns its host:port
+     */
+    private String node(int status, String members, String rows) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/export/", exchange -> {
+            boolean header = exchange.getRequestURI().getQuery().contains("header=true");
+            byte[] body = ((header ? "user,day\n" : "") + rows).getBytes(StandardCharsets.UTF_8);
+            if (members != null) {
+                exchange.getResponseHeaders().add(PlanExporter.MEMBERS_HEADER, members);
+            }
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        servers.add(server);
+        return "localhost:" + server.getAddress().getPort();
+    }
+
+    @Test
+    public void testJoinsNodesUnderOneHeader(@TempDir Path dir) throws Exception {
+        Path out = dir.resolve("plans.csv");
+        Files.writeString(out, "stale contents\n");
+        String a = node(200, null, "ann,1\n");
+        String b = node(200, null, "bo,1\n");
+        ExportCli.export(client, List.of(a, b), PlanExporter.Format.CSV, out);
+        assertEquals("user,day\nann,1\nbo,1\n", Files.readString(out));
+    }
+
+    @Test
+    public void testFailedNodeIsReportedAfterTheOthers(@TempDir Path dir) throws Exception {
+        Path out = dir.resolve("plans.csv");
+        String failing = node(503, null, "");
+        String down = "localhost:1";
+        String ok = node(200, null, "bo,1\n");
+
+        IOException e = assertThrows(IOException.class,
+                () -> ExportCli.export(client, List.of(failing, down, ok), PlanExporter.Format.CSV, out));
+        assertTrue(e.getMessage().contains(failing + " (status 503)"), e.getMessage());
+        assertTrue(e.getMessage().contains(down), e.getMessage());
+        // The header still leads the file even though the first node failed
+        assertEquals("user,day\nbo,1\n", Files.readString(out));
+    }
+
+    @Test
+    public void testMembersMissingFromTheNodeListAreReported(@TempDir Path dir) throws Exception {
+        Path out = dir.resolve("plans.csv");
+        String a = node(200, "n1:8080,n2:8080", "ann,1\n");
+
+        IOException e = assertThrows(IOException.class,
+                () -> ExportCli.export(client, List.of(a), PlanExporter.Format.CSV, out));
+        assertTrue(e.getMessage().contains("members not in --nodes: n1:8080, n2:8080"), e.getMessage());
+
+        // A one-member ring is complete whatever name it goes by
+        String single = node(200, "localhost:8080", "ann,1\n");
+        ExportCli.export(client, List.of(single), PlanExporter.Format.CSV, out);
+    }
+}
@@ -0,0 +1,72 @@
+package com.dietmaker;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for the HashRing class
+ */
+public class HashRingTest {
+
+    private static final List<String> NODES = List.of("node-a", "node-b", "node-c", "node-d");
+    private static final int KEYS = 20_000;
+
+    @Test
+    public void testKeysSpreadEvenly() {
+        HashRing ring = new HashRing(NODES);
+        Map<String, Integer> counts = new HashMap<>();
+        for (int i = 0; i < KEYS; i++) {
+            counts.merge(ring.primaryFor("user-" + i), 1, Integer::sum);
+        }
+        assertEquals(NODES.size(), counts.size());
+        for (int count : counts.values()) {
+            assertTrue(Math.abs(count - KEYS / NODES.size()) < KEYS / NODES.size() * 0.25,
+                       "Node share should be within 25% of even, got " + counts);
+        }
+    }
+
+    @Test
+    public void testReplicasAreDistinctAndPrimaryFirst() {
+        HashRing ring = new HashRing(NODES);
+        for (int i = 0; i < 1000; i++) {
+            List<String> replicas = ring.replicasFor("user-" + i, 3);
+            assertEquals(3, replicas.size());
+            assertEquals(3, new HashSet<>(replicas).size());
+            assertEquals(ring.primaryFor("user-" + i), replicas.get(0));
+        }
+        assertEquals(NODES.size(), ring.replicasFor("anyone", 10).size());
+        assertTrue(new HashRing(List.of()).replicasFor("anyone", 2).isEmpty());
+    }
+
+    @Test
+    public void testJoinMovesOnlyKeysToTheNewNode() {
+        HashRing before = new HashRing(NODES);
+        HashRing after = before.withNode("node-e");
+        int moved = 0;
+        for (int i = 0; i < KEYS; i++) {
+            String oldPrimary = before.primaryFor("user-" + i);
+            String newPrimary = after.primaryFor("user-" + i);
+            if (!oldPrimary.equals(newPrimary)) {
+                assertEquals("node-e", newPrimary);
+                moved++;
+            }
+        }
+        // About 1/5 of the keys should move to the new node
+        assertTrue(moved > KEYS * 0.15 && moved < KEYS * 0.25, "moved " + moved);
+        assertEquals(before.getNodes(), after.withoutNode("node-e").getNodes());
+    }
+
+    @Test
+    public void testRingIsIndependentOfMemberOrder() {
+        HashRing forward = new HashRing(NODES);
+        HashRing reversed = new HashRing(List.of("node-d", "node-c", "node-b", "node-a"));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(forward.replicasFor("user-" + i, 2), reversed.replicasFor("user-" + i, 2));
+        }
+    }
+}
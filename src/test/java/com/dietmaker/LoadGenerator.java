@@ -0,0 +1,455 @@
+package com.dietmaker;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.EncodableHistogram;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramLogReader;
+import org.HdrHistogram.HistogramLogWriter;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-loop HTTP load generator with latency percentile reports
+ *
+ * Starts the app on a random port (or targets a running one with --target), seeds a set of
+ * users through the API, then sends requests at a fixed rate drawn from a weighted mix of
+ * endpoints. Requests are scheduled, not paced by responses: request i is due at
+ * start + i / rate whether or not earlier ones have finished. Response time is measured from
+ * that due time, so a stall in the server (or in the generator) shows up in the percentiles
+ * instead of quietly lowering the offered load (coordinated omission). Service time, measured
+ * from the actual send, is reported next to it.
+ *
+ * Each run writes to its own directory: summary.txt, summary.csv, one HdrHistogram percentile
+ * distribution per endpoint (&lt;endpoint&gt;.hgrm, plottable with the HdrHistogram tools) and
+ * histograms.hlog, which --baseline reads to print a comparison with an earlier run.
+ *
+ * Options (all --name=value):
+ *   rate      requests per second (default 200)
+ *   duration  measured run length, e.g. 30s or 2m (default 30s)
+ *   warmup    unmeasured run before it at the same rate (default 10s)
+ *   mix       endpoint weights (default home=1,diet=3,api-get=2,api-put=1)
+ *   users     users seeded for the API calls (default 200)
+ *   target    base URL of a running app instead of starting one
+ *   out       report directory (default target/load-reports/&lt;timestamp&gt;)
+ *   baseline  report directory of an earlier run to compare against
+ *   seed      random seed for the request sequence (default 42)
+ */
+public class LoadGenerator {
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(1);
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    private static final String[] DIET_TYPES = {"vegetarian", "non-vegetarian", "balanced"};
+    private static final double[] REPORTED_PERCENTILES = {50, 90, 99, 99.9};
+
+    /**
+     * The kinds of request a mix is made of
+     */
+    public enum Endpoint {
+        HOME("home"),
+        DIET("diet"),
+        API_GET("api-get"),
+        API_PUT("api-put");
+
+        private final String key;
+
+        Endpoint(String key) {
+            this.key = key;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        static Endpoint fromKey(String key) {
+            for (Endpoint endpoint : values()) {
+                if (endpoint.key.equals(key)) {
+                    return endpoint;
+                }
+            }
+            throw new IllegalArgumentException("Unknown endpoint in mix: " + key);
+        }
+    }
+
+    private final Options options;
+    private final URI base;
+    private final HttpClient client;
+    private final Endpoint[] weightedEndpoints;
+
+    public LoadGenerator(Options options, URI base) {
+        this.options = options;
+        this.base = base;
+        this.client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).connectTimeout(REQUEST_TIMEOUT).build();
+        List<Endpoint> weighted = new ArrayList<>();
+        options.mix.forEach((endpoint, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                weighted.add(endpoint);
+            }
+        });
+        if (weighted.isEmpty()) {
+            throw new IllegalArgumentException("The mix needs at least one endpoint with a positive weight");
+        }
+        this.weightedEndpoints = weighted.toArray(new Endpoint[0]);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = Options.parse(args);
+        Report report = run(options);
+        report.print(System.out);
+        report.write(options.out);
+        if (options.baseline != null) {
+            report.compare(options.baseline, System.out);
+        }
+        System.out.println("Report written to " + options.out.toAbsolutePath());
+    }
+
+    /**
+     * Run a load test as configured, starting the app first unless a target is given
+     */
+    public static Report run(Options options) throws IOException, InterruptedException {
+        ConfigurableApplicationContext app = null;
+        String target = options.target;
+        if (target == null) {
+            app = SpringApplication.run(Main.class, "--server.port=0", "--spring.main.banner-mode=off",
+                                        "--logging.level.root=warn");
+            target = "http://localhost:" + app.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            return new LoadGenerator(options, URI.create(target)).run();
+        } finally {
+            if (app != null) {
+                app.close();
+            }
+        }
+    }
+
+    public Report run() throws IOException, InterruptedException {
+        seedUsers();
+        SplittableRandom random = new SplittableRandom(options.seed);
+        drive(options.warmup, random, null);
+        Report report = new Report(options.rate, options.duration);
+        drive(options.duration, random, report);
+        return report;
+    }
+
+    private void seedUsers() throws IOException, InterruptedException {
+        SplittableRandom random = new SplittableRandom(options.seed);
+        for (int i = 0; i < options.users; i++) {
+            HttpResponse<Void> response = client.send(putUser(i, random), HttpResponse.BodyHandlers.discarding());
+            if (response.statusCode() != 200) {
+                throw new IOException("Seeding user " + i + " failed with " + response.statusCode());
+            }
+        }
+    }
+
+    /**
+     * Send requests on a fixed schedule for the given time; a null report discards the results
+     */
+    private void drive(Duration length, SplittableRandom random, Report report) throws InterruptedException {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / options.rate;
+        long count = length.toNanos() / intervalNanos;
+        CountDownLatch outstanding = new CountDownLatch((int) count);
+        long start = System.nanoTime();
+        for (long i = 0; i < count; i++) {
+            long due = start + i * intervalNanos;
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Endpoint endpoint = weightedEndpoints[random.nextInt(weightedEndpoints.length)];
+            HttpRequest request = request(endpoint, random);
+            long sent = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                if (report != null) {
+                    report.record(endpoint, due, sent, System.nanoTime(), response == null ? -1 : response.statusCode());
+                }
+                outstanding.countDown();
+            });
+        }
+        if (!outstanding.await(REQUEST_TIMEOUT.toSeconds() * 2, TimeUnit.SECONDS)) {
+            System.err.println("Gave up waiting for " + outstanding.getCount() + " responses");
+        }
+    }
+
+    private HttpRequest request(Endpoint endpoint, SplittableRandom random) {
+        return switch (endpoint) {
+            case HOME -> get("/");
+            case DIET -> get("/diet/" + DIET_TYPES[random.nextInt(DIET_TYPES.length)]);
+            case API_GET -> get("/api/users/load-user-" + random.nextInt(options.users));
+            case API_PUT -> putUser(random.nextInt(options.users), random);
+        };
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).timeout(REQUEST_TIMEOUT).GET().build();
+    }
+
+    private HttpRequest putUser(int user, SplittableRandom random) {
+        String body = String.format(Locale.ROOT,
+                "{\"age\":%d,\"weight\":%.1f,\"height\":%.1f,\"activityLevel\":\"Moderately Active\",\"allergies\":[]}",
+                18 + random.nextInt(60), 50 + random.nextDouble(60), 150 + random.nextDouble(45));
+        return HttpRequest.newBuilder(base.resolve("/api/users/load-user-" + user))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    /**
+     * Run configuration, parsed from --name=value arguments
+     */
+    public static class Options {
+        int rate = 200;
+        Duration duration = Duration.ofSeconds(30);
+        Duration warmup = Duration.ofSeconds(10);
+        Map<Endpoint, Integer> mix = parseMix("home=1,diet=3,api-get=2,api-put=1");
+        int users = 200;
+        String target;
+        Path out = Paths.get("target", "load-reports",
+                             LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")));
+        Path baseline;
+        long seed = 42;
+
+        public static Options parse(String... args) {
+            Options options = new Options();
+            for (String arg : args) {
+                int eq = arg.indexOf('=');
+                if (!arg.startsWith("--") || eq < 0) {
+                    throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+                }
+                String value = arg.substring(eq + 1);
+                switch (arg.substring(2, eq)) {
+                    case "rate" -> options.rate = Integer.parseInt(value);
+                    case "duration" -> options.duration = parseDuration(value);
+                    case "warmup" -> options.warmup = parseDuration(value);
+                    case "mix" -> options.mix = parseMix(value);
+                    case "users" -> options.users = Integer.parseInt(value);
+                    case "target" -> options.target = value;
+                    case "out" -> options.out = Paths.get(value);
+                    case "baseline" -> options.baseline = Paths.get(value);
+                    case "seed" -> options.seed = Long.parseLong(value);
+                    default -> throw new IllegalArgumentException("Unknown option: " + arg);
+                }
+            }
+            if (options.rate < 1 || options.users < 1) {
+                throw new IllegalArgumentException("rate and users must be positive");
+            }
+            return options;
+        }
+
+        static Duration parseDuration(String value) {
+            if (value.endsWith("ms")) {
+                return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+            }
+            if (value.endsWith("m")) {
+                return Duration.ofMinutes(Long.parseLong(value.substring(0, value.length() - 1)));
+            }
+            if (value.endsWith("s")) {
+                return Duration.ofSeconds(Long.parseLong(value.substring(0, value.length() - 1)));
+            }
+            return Duration.ofSeconds(Long.parseLong(value));
+        }
+
+        static Map<Endpoint, Integer> parseMix(String value) {
+            Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+            for (String part : value.split(",")) {
+                String[] keyWeight = part.trim().split("=");
+                if (keyWeight.length != 2) {
+                    throw new IllegalArgumentException("Mix entries look like diet=3, got: " + part);
+                }
+                mix.put(Endpoint.fromKey(keyWeight[0].trim()), Integer.parseInt(keyWeight[1].trim()));
+            }
+            return mix;
+        }
+    }
+
+    /**
+     * Latency histograms and status counts of one measured run
+     */
+    public static class Report {
+        static final String ALL = "all";
+
+        private final int rate;
+        private final Duration duration;
+        private final Map<String, Stats> stats;
+
+        Report(int rate, Duration duration) {
+            this.rate = rate;
+            this.duration = duration;
+            this.stats = new LinkedHashMap<>();
+            stats.put(ALL, new Stats());
+            for (Endpoint endpoint : Endpoint.values()) {
+                stats.put(endpoint.getKey(), new Stats());
+            }
+        }
+
+        void record(Endpoint endpoint, long dueNanos, long sentNanos, long doneNanos, int status) {
+            stats.get(ALL).record(dueNanos, sentNanos, doneNanos, status);
+            stats.get(endpoint.getKey()).record(dueNanos, sentNanos, doneNanos, status);
+        }
+
+        public Stats get(String endpoint) {
+            return stats.get(endpoint);
+        }
+
+        public void print(PrintStream out) {
+            out.printf(Locale.ROOT, "Offered %d req/s for %ds%n", rate, duration.toSeconds());
+            out.printf(Locale.ROOT, "%-8s %8s %8s %6s %6s %10s %10s %10s %10s %10s %12s%n",
+                       "endpoint", "requests", "ok", "shed", "errors",
+                       "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "svc p99 ms");
+            stats.forEach((name, s) -> {
+                if (s.requests() == 0) {
+                    return;
+                }
+                Histogram r = s.responseTime;
+                out.printf(Locale.ROOT, "%-8s %8d %8d %6d %6d %10.2f %10.2f %10.2f %10.2f %10.2f %12.2f%n",
+                           name, s.requests(), s.ok.sum(), s.shed.sum(), s.errors.sum(),
+                           millis(r.getValueAtPercentile(50)), millis(r.getValueAtPercentile(90)),
+                           millis(r.getValueAtPercentile(99)), millis(r.getValueAtPercentile(99.9)),
+                           millis(r.getMaxValue()), millis(s.serviceTime.getValueAtPercentile(99)));
+            });
+        }
+
+        /**
+         * Write summary.txt, summary.csv, one .hgrm per endpoint and histograms.hlog into {@code dir}
+         */
+        public void write(Path dir) throws IOException {
+            Files.createDirectories(dir);
+            try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve("summary.txt")))) {
+                print(out);
+            }
+            try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve("summary.csv")))) {
+                out.println("endpoint,requests,ok,shed,errors,p50_ms,p90_ms,p99_ms,p99_9_ms,max_ms,service_p99_ms");
+                stats.forEach((name, s) -> {
+                    Histogram r = s.responseTime;
+                    out.printf(Locale.ROOT, "%s,%d,%d,%d,%d,%.3f,%.3f,%.3f,%.3f,%.3f,%.3f%n",
+                               name, s.requests(), s.ok.sum(), s.shed.sum(), s.errors.sum(),
+                               millis(r.getValueAtPercentile(50)), millis(r.getValueAtPercentile(90)),
+                               millis(r.getValueAtPercentile(99)), millis(r.getValueAtPercentile(99.9)),
+                               millis(r.getMaxValue()), millis(s.serviceTime.getValueAtPercentile(99)));
+                });
+            }
+            try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve("histograms.hlog")))) {
+                HistogramLogWriter writer = new HistogramLogWriter(out);
+                writer.outputComment("Response times in microseconds, measured from each request's scheduled start");
+                writer.outputLogFormatVersion();
+                writer.outputLegend();
+                for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+                    Histogram histogram = entry.getValue().responseTime.copy();
+                    histogram.setTag(entry.getKey());
+                    writer.outputIntervalHistogram(histogram);
+                }
+            }
+            for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+                if (entry.getValue().requests() == 0) {
+                    continue;
+                }
+                try (PrintStream out = new PrintStream(Files.newOutputStream(dir.resolve(entry.getKey() + ".hgrm")))) {
+                    entry.getValue().responseTime.outputPercentileDistribution(out, 1000.0);
+                }
+            }
+        }
+
+        /**
+         * Print this run's percentiles next to those of an earlier run's histograms.hlog
+         */
+        public void compare(Path baselineDir, PrintStream out) throws IOException {
+            Map<String, Histogram> baseline = readHistograms(baselineDir.resolve("histograms.hlog"));
+            out.println("Compared with " + baselineDir);
+            out.printf(Locale.ROOT, "%-8s %8s %22s %22s %22s%n", "endpoint", "pct", "baseline ms", "this run ms", "change");
+            stats.forEach((name, s) -> {
+                Histogram before = baseline.get(name);
+                if (before == null || before.getTotalCount() == 0 || s.requests() == 0) {
+                    return;
+                }
+                for (double percentile : REPORTED_PERCENTILES) {
+                    double was = millis(before.getValueAtPercentile(percentile));
+                    double now = millis(s.responseTime.getValueAtPercentile(percentile));
+                    out.printf(Locale.ROOT, "%-8s %8s %22.2f %22.2f %21.1f%%%n",
+                               name, "p" + percentile, was, now, was == 0 ? 0 : (now - was) * 100 / was);
+                }
+            });
+        }
+
+        static Map<String, Histogram> readHistograms(Path hlog) throws IOException {
+            Map<String, Histogram> histograms = new LinkedHashMap<>();
+            HistogramLogReader reader = new HistogramLogReader(hlog.toFile());
+            try {
+                EncodableHistogram next;
+                while ((next = reader.nextIntervalHistogram()) != null) {
+                    if (next instanceof Histogram histogram) {
+                        histograms.put(histogram.getTag(), histogram);
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+            return histograms;
+        }
+
+        private static double millis(long micros) {
+            return micros / 1000.0;
+        }
+    }
+
+    /**
+     * Histograms and counters for one endpoint (or all of them)
+     */
+    public static class Stats {
+        final Histogram responseTime = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+        final Histogram serviceTime = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+        final LongAdder ok = new LongAdder();
+        final LongAdder shed = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        void record(long dueNanos, long sentNanos, long doneNanos, int status) {
+            responseTime.recordValue(Math.min(HIGHEST_MICROS, TimeUnit.NANOSECONDS.toMicros(doneNanos - dueNanos)));
+            serviceTime.recordValue(Math.min(HIGHEST_MICROS, TimeUnit.NANOSECONDS.toMicros(doneNanos - sentNanos)));
+            if (status >= 200 && status < 400) {
+                ok.increment();
+            } else if (status == 503) {
+                shed.increment();
+            } else {
+                errors.increment();
+            }
+        }
+
+        public long requests() {
+            return responseTime.getTotalCount();
+        }
+
+        public long getOk() {
+            return ok.sum();
+        }
+
+        public long getShed() {
+            return shed.sum();
+        }
+
+        public Histogram getResponseTime() {
+            return responseTime;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.dietmaker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+
+import org.HdrHistogram.Histogram;
+
+/**
+ * Short end-to-end run of the LoadGenerator harness against the app on a random port
+ */
+public class LoadGeneratorTest {
+
+    @Test
+    public void testParsesOptions() {
+        LoadGenerator.Options options = LoadGenerator.Options.parse("--rate=500", "--duration=2m", "--warmup=1500ms",
+                                                                    "--mix=diet=2,api-get=1");
+        assertEquals(500, options.rate);
+        assertEquals(Duration.ofMinutes(2), options.duration);
+        assertEquals(Duration.ofMillis(1500), options.warmup);
+        assertEquals(Map.of(LoadGenerator.Endpoint.DIET, 2, LoadGenerator.Endpoint.API_GET, 1), options.mix);
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.Options.parse("--mix=checkout=1"));
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.Options.parse("--rate"));
+    }
+
+    @Test
+    public void testRunWritesComparableReports(@TempDir Path reports) throws Exception {
+        LoadGenerator.Options options = LoadGenerator.Options.parse("--rate=100", "--duration=1s", "--warmup=0s",
+                                                                    "--users=5", "--out=" + reports.resolve("run"));
+        LoadGenerator.Report report = LoadGenerator.run(options);
+
+        LoadGenerator.Stats all = report.get(LoadGenerator.Report.ALL);
+        assertEquals(100, all.requests());
+        // Without warmup a cold app may shed some requests, but none may fail outright
+        assertEquals(100, all.getOk() + all.getShed());
+        assertTrue(all.getOk() > 0);
+        assertTrue(report.get("diet").requests() > report.get("home").requests());
+
+        report.write(options.out);
+        for (String file : new String[] {"summary.txt", "summary.csv", "histograms.hlog", "all.hgrm", "diet.hgrm"}) {
+            assertTrue(Files.size(options.out.resolve(file)) > 0, file);
+        }
+
+        Map<String, Histogram> reread = LoadGenerator.Report.readHistograms(options.out.resolve("histograms.hlog"));
+        assertEquals(all.getResponseTime().getTotalCount(), reread.get("all").getTotalCount());
+
+        ByteArrayOutputStream comparison = new ByteArrayOutputStream();
+        report.compare(options.out, new PrintStream(comparison));
+        assertTrue(comparison.toString().contains("p99.0"));
+    }
+}
@@ -0,0 +1,123 @@
+package com.dietmaker;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import jakarta.servlet.Filter;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServlet;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for LoadSheddingFilter and AdmissionControl
+ */
+public class LoadSheddingFilterTest {
+
+    private static AdmissionControl admissionControl(boolean enabled) {
+        MockEnvironment environment = new MockEnvironment()
+                .withProperty("dietmaker.admission.api.min-limit", "1")
+                .withProperty("dietmaker.admission.api.initial-limit", "1");
+        return new AdmissionControl(environment, enabled, 2);
+    }
+
+    private static MockHttpServletResponse get(LoadSheddingFilter filter, String path, Filter downstream)
+            throws ServletException, IOException {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() { }, downstream);
+        filter.doFilter(new MockHttpServletRequest("GET", path), response, chain);
+        return response;
+    }
+
+    @Test
+    public void testClassifiesPaths() {
+        AdmissionControl control = admissionControl(true);
+        assertEquals(AdmissionControl.PAGES, control.limitFor("/").getName());
+        assertEquals(AdmissionControl.PAGES, control.limitFor("/diet/balanced").getName());
+        assertEquals(AdmissionControl.PAGES, control.limitFor("/clinic/north/diet/keto").getName());
+        assertEquals(AdmissionControl.API, control.limitFor("/api/users/ann").getName());
+        assertEquals(AdmissionControl.CLUSTER, control.limitFor("/cluster/members").getName());
+        assertEquals(AdmissionControl.EXPORT, control.limitFor("/export/plans.jsonl").getName());
+        assertNull(control.limitFor("/css/index-abc.css"));
+        assertNull(control.limitFor("/admin/admission"));
+        assertNull(admissionControl(false).limitFor("/api/users/ann"));
+    }
+
+    @Test
+    public void testDefaultMaximumsFitTomcatsThreadPool() {
+        AdmissionControl control = new AdmissionControl(new MockEnvironment(), true, 1);
+        int total = 0;
+        for (String path : List.of("/", "/api/users/ann", "/cluster/users/ann", "/export/plans.csv")) {
+            total += control.limitFor(path).getMaxLimit();
+        }
+        assertEquals(200, total);
+    }
+
+    @Test
+    public void testReplicationIsNeverShed() {
+        AdmissionControl control = admissionControl(true);
+        MockHttpServletRequest replica = new MockHttpServletRequest("PUT", "/cluster/users/ann");
+        replica.setParameter("mode", "replica");
+        assertNull(control.limitFor(replica));
+        assertNull(control.limitFor(new MockHttpServletRequest("POST", "/cluster/members")));
+
+        MockHttpServletRequest primary = new MockHttpServletRequest("PUT", "/cluster/users/ann");
+        primary.setParameter("mode", "primary");
+        assertEquals(AdmissionControl.CLUSTER, control.limitFor(primary).getName());
+        assertEquals(AdmissionControl.CLUSTER, control.limitFor(new MockHttpServletRequest("GET", "/cluster/users/ann")).getName());
+        assertEquals(AdmissionControl.API, control.limitFor(new MockHttpServletRequest("PUT", "/api/users/ann")).getName());
+    }
+
+    @Test
+    public void testShedsWithRetryAfterWhenClassIsFull() throws Exception {
+        AdmissionControl control = admissionControl(true);
+        LoadSheddingFilter filter = new LoadSheddingFilter(control);
+        AtomicInteger reached = new AtomicInteger();
+        MockHttpServletResponse[] nested = new MockHttpServletResponse[2];
+
+        // While one API call holds the only API slot, another API call is shed but a page is served
+        MockHttpServletResponse outer = get(filter, "/api/users/ann", (request, response, chain) -> {
+            reached.incrementAndGet();
+            nested[0] = get(filter, "/api/users/bob", (rq, rs, c) -> reached.incrementAndGet());
+            nested[1] = get(filter, "/diet/balanced", (rq, rs, c) -> reached.incrementAndGet());
+        });
+
+        assertEquals(200, outer.getStatus());
+        assertEquals(503, nested[0].getStatus());
+        assertEquals("2", nested[0].getHeader("Retry-After"));
+        assertEquals(200, nested[1].getStatus());
+        assertEquals(2, reached.get());
+
+        AdaptiveLimit.Stats api = control.getStats().get(1);
+        assertEquals(AdmissionControl.API, api.endpointClass());
+        assertEquals(1, api.accepted());
+        assertEquals(1, api.shed());
+        assertEquals(0, api.inFlight());
+
+        // The slot is free again once the first call finished
+        assertEquals(200, get(filter, "/api/users/bob", (rq, rs, c) -> { }).getStatus());
+    }
+
+    @Test
+    public void testStreamedResponseHoldsItsSlotUntilComplete() throws Exception {
+        AdmissionControl control = admissionControl(true);
+        LoadSheddingFilter filter = new LoadSheddingFilter(control);
+        AdaptiveLimit export = control.limitFor("/export/plans.csv");
+        assertEquals(AdmissionControl.EXPORT, export.getName());
+
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/export/plans.csv");
+        request.setAsyncSupported(true);
+        MockFilterChain chain = new MockFilterChain(new HttpServlet() { }, (rq, rs, c) -> rq.startAsync());
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertEquals(1, export.getInFlight());
+        request.getAsyncContext().complete();
+        assertEquals(0, export.getInFlight());
+    }
+}
@@ -0,0 +1,116 @@
+package com.dietmaker;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for the MealCatalog class
+ */
+public class MealCatalogTest {
+
+    @TempDir
+    Path catalogDir;
+
+    @Test
+    public void testDefaultsContainFactoryPlans() {
+        MealCatalog catalog = MealCatalog.defaults(1);
+        assertEquals(1, catalog.getVersion());
+        assertEquals(3, catalog.getPlans().size());
+        assertEquals("Vegetarian Diet", catalog.getPlan("vegetarian").getName());
+        assertEquals("Balanced Diet", catalog.getPlan("BALANCED").getName());
+        assertNull(catalog.getPlan("keto"));
+        assertThrows(UnsupportedOperationException.class, () -> catalog.getPlans().remove("balanced"));
+    }
+
+    @Test
+    public void testSnapshotMealListsAreReadOnly() {
+        DietPlan plan = MealCatalog.defaults(1).getPlan("balanced");
+        Meal extra = new Meal("Extra", "Should not be added", 100, 1.0, 1.0, 1.0, "Snack");
+        assertThrows(UnsupportedOperationException.class, () -> plan.addMeal(extra));
+        assertThrows(UnsupportedOperationException.class, () -> plan.getMealsByType("Lunch").clear());
+        assertThrows(UnsupportedOperationException.class, () -> plan.getMealsByType().get("Dinner").remove(0));
+        assertEquals(2, plan.getMealsByType("Snack").size());
+    }
+
+    @Test
+    public void testParsePlan() {
+        DietPlan plan = MealCatalog.parsePlan("keto.plan", List.of(
+                "# Low-carb plan",
+                "plan | Keto Diet | High fat, very low carb",
+                "",
+                "Breakfast | Bacon and Eggs | Three eggs, crispy bacon, butter | 520 | 30.0 | 2.0 | 42.0",
+                "Snack | Cheese Cubes | Aged cheddar | 180 | 11.0 | 1.0 | 15.0"));
+        assertEquals("Keto Diet", plan.getName());
+        assertEquals("High fat, very low carb", plan.getDescription());
+        assertEquals(2, plan.getAllMeals().size());
+        Meal breakfast = plan.getMealsByType("Breakfast").get(0);
+        assertEquals("Three eggs, crispy bacon, butter", breakfast.getDescription());
+        assertEquals(520, breakfast.getCalories());
+        assertEquals(42.0, breakfast.getFats(), 0.01);
+    }
+
+    @Test
+    public void testParsePlanReadsMicronutrients() {
+        DietPlan plan = MealCatalog.parsePlan("soup.plan", List.of(
+                "plan | Soups | Warm meals",
+                "Lunch | Lentil Soup | Red lentil soup | 300 | 18 | 45 | 5 | fiber=11, IRON=5.2, sodium=480",
+                "Dinner | Broth | Clear broth | 40 | 2 | 1 | 1"));
+        Meal soup = plan.getMealsByType("Lunch").get(0);
+        assertEquals(11.0, soup.getMicronutrient(Micronutrient.FIBER), 1e-6);
+        assertEquals(5.2, soup.getMicronutrient(Micronutrient.IRON), 1e-6);
+        assertEquals(0.0, soup.getMicronutrient(Micronutrient.CALCIUM), 0.0);
+        assertFalse(plan.getMealsByType("Dinner").get(0).hasMicronutrients());
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> MealCatalog.parsePlan("e.plan",
+                List.of("plan | E | E", "Lunch | Soup | Soup | 100 | 1 | 1 | 1 | fibre=3")));
+        assertTrue(e.getMessage().startsWith("e.plan:2: "), e.getMessage());
+        assertThrows(IllegalArgumentException.class, () -> MealCatalog.parsePlan("f.plan",
+                List.of("plan | F | F", "Lunch | Soup | Soup | 100 | 1 | 1 | 1 | fiber=lots")));
+    }
+
+    @Test
+    public void testParsePlanRejectsMalformedLines() {
+        assertThrows(IllegalArgumentException.class,
+                     () -> MealCatalog.parsePlan("a.plan", List.of("Breakfast | Eggs | Eggs | 100 | 1 | 1 | 1")));
+        assertThrows(IllegalArgumentException.class,
+                     () -> MealCatalog.parsePlan("b.plan", List.of("plan | B | B", "Brunch | Eggs | Eggs | 100 | 1 | 1 | 1")));
+        assertThrows(IllegalArgumentException.class,
+                     () -> MealCatalog.parsePlan("c.plan", List.of("plan | C | C", "Lunch | Soup | Soup | lots | 1 | 1 | 1")));
+        assertThrows(IllegalArgumentException.class, () -> MealCatalog.parsePlan("d.plan", List.of("# empty")));
+    }
+
+    @Test
+    public void testLoadAddsAndOverridesPlans() throws IOException {
+        Files.writeString(catalogDir.resolve("keto.plan"),
+                          "plan | Keto Diet | Low carb\nLunch | Steak Salad | Steak on greens | 600 | 45 | 8 | 40\n");
+        Files.writeString(catalogDir.resolve("balanced.plan"),
+                          "plan | Clinic Balanced | Our balanced plan\nDinner | Fish | Baked fish | 400 | 35 | 10 | 20\n");
+        Files.writeString(catalogDir.resolve("notes.txt"), "ignored");
+
+        MealCatalog catalog = MealCatalog.load(catalogDir, 2);
+        assertEquals(4, catalog.getPlans().size());
+        assertEquals("Keto Diet", catalog.getPlan("keto").getName());
+        assertEquals("Clinic Balanced", catalog.getPlan("balanced").getName());
+        assertEquals("Vegetarian Diet", catalog.getPlan("vegetarian").getName());
+    }
+
+    @Test
+    public void testDerivedValuesAreComputedOncePerSnapshot() {
+        AtomicInteger computations = new AtomicInteger();
+        MealCatalog first = MealCatalog.defaults(1);
+        first.derived("mealCount", c -> computations.incrementAndGet());
+        first.derived("mealCount", c -> computations.incrementAndGet());
+        assertEquals(1, computations.get());
+
+        MealCatalog second = MealCatalog.defaults(2);
+        second.derived("mealCount", c -> computations.incrementAndGet());
+        assertEquals(2, computations.get());
+    }
+}
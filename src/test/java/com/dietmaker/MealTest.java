@@ -86,4 +86,21 @@ public class MealTest {
         assertEquals(0.0, edgeCaseMeal.getCarbs(), 0.01);
         assertEquals(0.0, edgeCaseMeal.getFats(), 0.01);
     }
+    
+    @Test
+    public void testMicronutrients() {
+        assertFalse(meal.hasMicronutrients());
+        assertEquals(0.0, meal.getMicronutrient(Micronutrient.IRON), 0.0);
+        
+        meal.setMicronutrient(Micronutrient.IRON, 3.2);
+        meal.setMicronutrient(Micronutrient.VITAMIN_C, 45.0);
+        assertTrue(meal.hasMicronutrients());
+        assertEquals(3.2, meal.getMicronutrient(Micronutrient.IRON), 1e-6);
+        assertEquals(45.0, meal.getMicronutrient(Micronutrient.VITAMIN_C), 1e-6);
+        
+        float[] packed = new float[Micronutrient.COUNT * 2];
+        meal.copyMicronutrients(packed, Micronutrient.COUNT);
+        assertEquals(3.2f, packed[Micronutrient.COUNT + Micronutrient.IRON.ordinal()], 0f);
+        assertEquals(0f, packed[Micronutrient.IRON.ordinal()], 0f);
+    }
 }
@@ -0,0 +1,107 @@
+package com.dietmaker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for the NutrientCoverageScorer class
+ */
+public class NutrientCoverageScorerTest {
+
+    private User adult;
+    private Meal ironRich;
+    private Meal vitaminRich;
+    private Meal salty;
+    private NutrientCoverageScorer scorer;
+
+    @BeforeEach
+    public void setUp() {
+        adult = new User("John Doe", 30, 70.0, 175.0, "moderately active");
+        ironRich = new Meal("Lentil Curry", "Red lentils with rice", 420, 20.0, 68.0, 6.0, "Dinner");
+        ironRich.setMicronutrient(Micronutrient.IRON, 8.0);
+        ironRich.setMicronutrient(Micronutrient.FIBER, 19.0);
+        vitaminRich = new Meal("Fruit Salad", "Oranges, kiwi and berries", 150, 2.0, 35.0, 1.0, "Snack");
+        vitaminRich.setMicronutrient(Micronutrient.VITAMIN_C, 180.0);
+        vitaminRich.setMicronutrient(Micronutrient.FIBER, 19.0);
+        salty = new Meal("Ramen", "Instant ramen", 380, 8.0, 52.0, 14.0, "Lunch");
+        salty.setMicronutrient(Micronutrient.SODIUM, 4600.0);
+        scorer = new NutrientCoverageScorer(List.of(ironRich, vitaminRich, salty));
+    }
+
+    @Test
+    public void testTargetsDependOnAge() {
+        User child = new User("Kid", 10, 35.0, 140.0, "very active");
+        User older = new User("Senior", 65, 75.0, 170.0, "sedentary");
+        assertEquals(1300f, NutrientCoverageScorer.dailyTargets(child)[Micronutrient.CALCIUM.ordinal()], 0f);
+        assertEquals(1000f, NutrientCoverageScorer.dailyTargets(adult)[Micronutrient.CALCIUM.ordinal()], 0f);
+        assertEquals(1.7f, NutrientCoverageScorer.dailyTargets(older)[Micronutrient.VITAMIN_B6.ordinal()], 1e-6f);
+    }
+
+    @Test
+    public void testTeenagersGetTheirOwnBand() {
+        User teen = new User("Teen", 16, 60.0, 172.0, "very active");
+        assertEquals(1300f, NutrientCoverageScorer.dailyTargets(teen)[Micronutrient.CALCIUM.ordinal()], 0f);
+        assertEquals(1250f, NutrientCoverageScorer.dailyTargets(teen)[Micronutrient.PHOSPHORUS.ordinal()], 0f);
+        assertEquals(1300.0, Micronutrient.CALCIUM.getDailyTarget(18), 0.0);
+        assertEquals(1000.0, Micronutrient.CALCIUM.getDailyTarget(19), 0.0);
+        assertEquals(700.0, Micronutrient.PHOSPHORUS.getDailyTarget(19), 0.0);
+    }
+
+    @Test
+    public void testCoverageCapsAllowancesAndPenalizesLimits() {
+        double[] coverage = scorer.coverage(adult, 0, 1, 2);
+        assertEquals(1.0, coverage[Micronutrient.IRON.ordinal()], 1e-6);        // 8 of 8 mg
+        assertEquals(1.0, coverage[Micronutrient.VITAMIN_C.ordinal()], 1e-6);   // 180 of 90 mg, capped
+        assertEquals(1.0, coverage[Micronutrient.FIBER.ordinal()], 1e-6);       // 38 of 38 g
+        assertEquals(0.5, coverage[Micronutrient.SODIUM.ordinal()], 1e-6);      // twice the limit
+        assertEquals(1.0, coverage[Micronutrient.ADDED_SUGAR.ordinal()], 1e-6); // none, under the limit
+        assertEquals(0.0, coverage[Micronutrient.ZINC.ordinal()], 1e-6);
+    }
+
+    @Test
+    public void testScoreIsMeanCoverage() {
+        double withoutRamen = scorer.score(adult, 0, 1);
+        // iron, vitamin C, fiber, sodium and added sugar are fully covered
+        assertEquals(5.0 / Micronutrient.COUNT, withoutRamen, 1e-6);
+        assertTrue(scorer.score(adult, 0, 1, 2) < withoutRamen);
+    }
+
+    @Test
+    public void testBuiltInPlansCoverMoreThanTheLimits() {
+        for (DietPlan plan : MealCatalog.defaults(1).getPlans().values()) {
+            for (Meal meal : plan.getAllMeals()) {
+                assertTrue(meal.hasMicronutrients(), meal.getName());
+            }
+            // One meal of each type
+            List<Meal> day = List.of(plan.getMealsByType("Breakfast").get(0), plan.getMealsByType("Lunch").get(0),
+                                     plan.getMealsByType("Dinner").get(0), plan.getMealsByType("Snack").get(0));
+            NutrientCoverageScorer dayScorer = new NutrientCoverageScorer(day);
+            double[] coverage = dayScorer.coverage(adult, 0, 1, 2, 3);
+            assertTrue(coverage[Micronutrient.FIBER.ordinal()] > 0.3, plan.getName());
+            assertTrue(coverage[Micronutrient.IRON.ordinal()] > 0.3, plan.getName());
+            assertTrue(dayScorer.score(adult, 0, 1, 2, 3) > 2.0 / Micronutrient.COUNT + 0.1, plan.getName());
+        }
+    }
+
+    @Test
+    public void testScoreAllMatchesSingleScores() {
+        Random random = new Random(3);
+        int planLength = 4;
+        int[] plans = new int[5000 * planLength];
+        for (int i = 0; i < plans.length; i++) {
+            plans[i] = random.nextInt(3);
+        }
+        double[] scores = scorer.scoreAll(adult, plans, planLength);
+        assertEquals(5000, scores.length);
+        for (int p = 0; p < scores.length; p += 499) {
+            int[] plan = Arrays.copyOfRange(plans, p * planLength, (p + 1) * planLength);
+            assertEquals(scorer.score(adult, plan), scores[p], 1e-12);
+        }
+        assertThrows(IllegalArgumentException.class, () -> scorer.scoreAll(adult, new int[] {0, 1, 2}, 2));
+    }
+}
@@ -0,0 +1,222 @@
+package com.dietmaker;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Unit tests for the PlanExporter and ExportWriter classes
+ */
+public class PlanExporterTest {
+
+    private CatalogService catalogService;
+    private ClusterNode node;
+    private PlanExporter exporter;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        catalogService = new CatalogService("");
+        node = new LocalClusterTransport().start("n1", List.of("n1"), 1);
+        exporter = new PlanExporter(node, catalogService);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        catalogService.close();
+    }
+
+    private void addUser(String name, String preference, String... allergies) {
+        User user = new User(name, 35, 72.0, 178.0, "Lightly Active");
+        user.update(p -> p.withDietPreference(preference).withAllergies(List.of(allergies)).withDailyCalorieGoal(1250));
+        node.put(UserRecord.from(user));
+    }
+
+    /**
+     * Channel that keeps what it is given and how large each write was
+     */
+    private static class RecordingChannel implements WritableByteChannel {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int writes;
+        int largestWrite;
+        boolean closed;
+
+        @Override
+        public int write(ByteBuffer src) {
+            int n = src.remaining();
+            byte[] chunk = new byte[n];
+            src.get(chunk);
+            bytes.write(chunk, 0, n);
+            writes++;
+            largestWrite = Math.max(largestWrite, n);
+            return n;
+        }
+
+        @Override
+        public boolean isOpen() {
+            return true;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        String text() {
+            return bytes.toString(StandardCharsets.UTF_8);
+        }
+    }
+
+    private String export(PlanExporter.Format format, boolean header) throws IOException {
+        RecordingChannel channel = new RecordingChannel();
+        ExportWriter writer = new ExportWriter(channel);
+        exporter.export(writer, format, header);
+        writer.flush();
+        return channel.text();
+    }
+
+    @Test
+    public void testCsvHasOneRowPerMeal() throws IOException {
+        addUser("Ann", "vegetarian");
+        addUser("Lee, Bo", null, "tuna");
+
+        String[] lines = export(PlanExporter.Format.CSV, true).split("\n");
+        assertEquals("user,day,meal_type,meal,calories,protein,carbs,fats", lines[0]);
+        assertEquals(1 + 2 * PlanExporter.DAYS * MealSchedule.MEAL_TYPES.size(), lines.length);
+
+        long boRows = 0;
+        for (String line : lines) {
+            if (line.startsWith("\"Lee, Bo\",")) {
+                boRows++;
+                assertFalse(line.contains("Tuna"), line);
+            }
+        }
+        assertEquals(PlanExporter.DAYS * MealSchedule.MEAL_TYPES.size(), boRows);
+        assertFalse(export(PlanExporter.Format.CSV, false).startsWith("user,"));
+    }
+
+    @Test
+    public void testJsonLinesHaveOneObjectPerUser() throws IOException {
+        addUser("Ann \"the runner\"", "non-vegetarian");
+        addUser("Bo", "balanced");
+
+        String[] lines = export(PlanExporter.Format.JSON_LINES, true).split("\n");
+        assertEquals(2, lines.length);
+        ObjectMapper mapper = new ObjectMapper();
+        for (String line : lines) {
+            JsonNode user = mapper.readTree(line);
+            assertEquals(1250, user.get("dailyCalorieGoal").asInt());
+            assertEquals(PlanExporter.DAYS, user.get("days").size());
+            JsonNode monday = user.get("days").get(0);
+            int sum = 0;
+            for (JsonNode meal : monday.get("meals")) {
+                sum += meal.get("calories").asInt();
+            }
+            assertEquals(monday.get("calories").asInt(), sum);
+        }
+        assertTrue(List.of(mapper.readTree(lines[0]).get("user").asText(), mapper.readTree(lines[1]).get("user").asText())
+                       .contains("Ann \"the runner\""));
+    }
+
+    @Test
+    public void testLargeExportIsWrittenInBufferSizedChunks() throws IOException {
+        for (int i = 0; i < 2000; i++) {
+            addUser("user-" + i, i % 2 == 0 ? "vegetarian" : "balanced");
+        }
+        RecordingChannel channel = new RecordingChannel();
+        ExportWriter writer = new ExportWriter(channel, 8 * 1024);
+        assertEquals(2000, exporter.export(writer, PlanExporter.Format.CSV, true));
+        writer.flush();
+
+        assertTrue(channel.writes > 100, "output should leave as it is produced, got " + channel.writes + " writes");
+        assertTrue(channel.largestWrite <= 8 * 1024);
+        assertEquals(channel.bytes.size(), writer.getBytesWritten());
+    }
+
+    @Test
+    public void testWriterEncodesAcrossBufferBoundaries() throws IOException {
+        RecordingChannel channel = new RecordingChannel();
+        ExportWriter writer = new ExportWriter(channel, 16);
+        String text = "Crème brûlée, açaí bowl and 寿司 ".repeat(20);
+        writer.append(text).append('!').append(42);
+        writer.close();
+        assertEquals(text + "!42", channel.text());
+    }
+
+    @Test
+    public void testSurrogatePairsSurviveCharByCharWrites() throws IOException {
+        String text = "Ana \uD83C\uDF4E and \uD835\uDD38 bowl ".repeat(7);
+        for (int bufferSize : new int[] {4, 5, 16, 1024}) {
+            RecordingChannel channel = new RecordingChannel();
+            ExportWriter writer = new ExportWriter(channel, bufferSize);
+            for (int i = 0; i < text.length(); i++) {
+                writer.append(text.charAt(i));
+                if (i % 5 == 0) {
+                    writer.flush(); // may land between the two halves of a pair
+                }
+            }
+            writer.close();
+            assertEquals(text, channel.text(), "buffer size " + bufferSize);
+        }
+    }
+
+    @Test
+    public void testFinishEndsTheTextWithoutClosingTheChannel() throws IOException {
+        RecordingChannel channel = new RecordingChannel();
+        ExportWriter writer = new ExportWriter(channel, 16);
+        writer.append("cut off \uD83C");
+        writer.flush();
+        assertEquals("cut off ", channel.text()); // the half pair waits for its other half
+
+        writer.finish();
+        assertEquals("cut off ?", channel.text());
+        assertFalse(channel.closed);
+        assertThrows(IllegalStateException.class, () -> writer.append('x'));
+        writer.close();
+        assertTrue(channel.closed);
+        assertEquals("cut off ?", channel.text());
+    }
+
+    @Test
+    public void testJsonLinesKeepNonBmpNames() throws IOException {
+        addUser("Ana \uD83C\uDF4E", "balanced");
+        JsonNode user = new ObjectMapper().readTree(export(PlanExporter.Format.JSON_LINES, false));
+        assertEquals("Ana \uD83C\uDF4E", user.get("user").asText());
+    }
+
+    @Test
+    public void testPlansWithTheSameDisplayNameAreCachedSeparately(@TempDir Path catalogDir) throws IOException {
+        Files.writeString(catalogDir.resolve("keto.plan"), "plan | Clinic Plan | Low carb\n"
+                + "Lunch | Steak Salad | Steak on greens | 500 | 40 | 10 | 30\n");
+        Files.writeString(catalogDir.resolve("vegan.plan"), "plan | Clinic Plan | Plants only\n"
+                + "Lunch | Tofu Bowl | Tofu with rice | 450 | 20 | 60 | 12\n");
+        MealCatalog catalog = MealCatalog.load(catalogDir, 1);
+
+        User user = new User("Ann", 35, 72.0, 178.0, "Lightly Active");
+        user.update(p -> p.withDietPreference("keto").withDailyCalorieGoal(500));
+        UserRecord keto = UserRecord.from(user);
+        user.update(p -> p.withDietPreference("vegan"));
+        UserRecord vegan = UserRecord.from(user);
+
+        assertEquals("Steak Salad", exporter.weeklyPlan(catalog, keto).getMeal(0, "Lunch").getName());
+        assertEquals("Tofu Bowl", exporter.weeklyPlan(catalog, vegan).getMeal(0, "Lunch").getName());
+    }
+
+    @Test
+    public void testUnknownFormatIsRejected() {
+        assertEquals(PlanExporter.Format.JSON_LINES, PlanExporter.Format.fromExtension("JSONL"));
+        assertThrows(IllegalArgumentException.class, () -> PlanExporter.Format.fromExtension("xml"));
+    }
+}
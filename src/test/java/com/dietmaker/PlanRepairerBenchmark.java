@@ -0,0 +1,73 @@
+package com.dietmaker;
+
+import org.HdrHistogram.Histogram;
+
+import java.util.Locale;
+
+/**
+ * Timing harness for {@link PlanRepairer}, kept out of the unit tests so a busy machine can't
+ * fail the build
+ *
+ * Repairs a whole week after a goal change against a generated catalog, first unmeasured to
+ * let the JIT compile the search, then measured, and prints the latency percentiles.
+ *
+ * Options (all --name=value):
+ *   meals       meals per meal type in the catalog (default 300)
+ *   warmup      unmeasured repairs (default 500)
+ *   iterations  measured repairs (default 2000)
+ */
+public class PlanRepairerBenchmark {
+    static final int WEEK = 7;
+
+    public static void main(String[] args) {
+        int meals = 300;
+        int warmup = 500;
+        int iterations = 2000;
+        for (String arg : args) {
+            String[] option = arg.replaceFirst("^--", "").split("=", 2);
+            if (option.length != 2) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            switch (option[0]) {
+                case "meals" -> meals = Integer.parseInt(option[1]);
+                case "warmup" -> warmup = Integer.parseInt(option[1]);
+                case "iterations" -> iterations = Integer.parseInt(option[1]);
+                default -> throw new IllegalArgumentException("Unknown option: " + option[0]);
+            }
+        }
+
+        DietPlan catalog = largeCatalog(meals);
+        PlanRepairer repairer = new PlanRepairer(catalog);
+        MealSchedule week = MealSchedule.rotating(catalog, WEEK);
+        User.Profile user = new User("Benchmark User", 30, 70.0, 175.0, "Moderately Active").getProfile()
+                .withDailyCalorieGoal(2200);
+
+        for (int i = 0; i < warmup; i++) {
+            repairer.repair(week, user, new PlanChange.GoalChanged());
+        }
+        Histogram histogram = new Histogram(3);
+        for (int i = 0; i < iterations; i++) {
+            long start = System.nanoTime();
+            repairer.repair(week, user, new PlanChange.GoalChanged());
+            histogram.recordValue((System.nanoTime() - start) / 1000);
+        }
+
+        System.out.printf(Locale.ROOT, "Week repair, %d meals per type, %d runs (microseconds)%n", meals, iterations);
+        System.out.printf(Locale.ROOT, "  mean %.0f  p50 %d  p90 %d  p99 %d  max %d%n",
+                          histogram.getMean(), histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(90),
+                          histogram.getValueAtPercentile(99), histogram.getMaxValue());
+    }
+
+    /**
+     * A catalog of {@code mealsPerType} generated meals per type, with calories spread over 100-699
+     */
+    static DietPlan largeCatalog(int mealsPerType) {
+        DietPlan plan = new DietPlan("Big", "Many meals per type");
+        for (String type : MealSchedule.MEAL_TYPES) {
+            for (int i = 0; i < mealsPerType; i++) {
+                plan.addMeal(new Meal(type + " " + i, "Generated meal", 100 + (i * 37) % 600, 10, 20, 5, type));
+            }
+        }
+        return plan;
+    }
+}
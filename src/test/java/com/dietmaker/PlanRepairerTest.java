@@ -0,0 +1,125 @@
+package com.dietmaker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Unit tests for the PlanRepairer and MealSchedule classes
+ */
+public class PlanRepairerTest {
+
+    private static final int WEEK = 7;
+
+    private DietPlan catalog;
+    private PlanRepairer repairer;
+    private MealSchedule week;
+
+    @BeforeEach
+    public void setUp() {
+        catalog = DietPlan.DietPlanFactory.createBalancedDiet();
+        repairer = new PlanRepairer(catalog);
+        week = MealSchedule.rotating(catalog, WEEK);
+    }
+
+    private static User.Profile profile(double goal, String... allergies) {
+        return new User("Test User", 30, 70.0, 175.0, "Moderately Active").getProfile()
+                .withDailyCalorieGoal(goal)
+                .withAllergies(List.of(allergies));
+    }
+
+    private static Set<Integer> changedDays(PlanRepairer.Result result) {
+        return result.changedSlots().stream().map(PlanRepairer.Slot::day).collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testRotatingScheduleCyclesThroughCatalog() {
+        assertEquals("Whole Grain Pancakes", week.getMeal(0, "Breakfast").getName());
+        assertEquals("Egg and Veggie Omelet", week.getMeal(1, "Breakfast").getName());
+        assertEquals("Whole Grain Pancakes", week.getMeal(3, "breakfast").getName());
+        assertEquals(320 + 430 + 380 + 150, week.getDailyCalories(0));
+
+        MealSchedule edited = week.withMeal(0, "Snack", null);
+        assertEquals(320 + 430 + 380, edited.getDailyCalories(0));
+        assertNotNull(week.getMeal(0, "Snack"));
+    }
+
+    @Test
+    public void testRemovedMealIsReplacedAndRestStaysPut() {
+        User.Profile user = profile(week.getDailyCalories(2));
+        Meal removed = week.getMeal(2, "Lunch");
+
+        PlanRepairer.Result result = repairer.repair(week, user, new PlanChange.MealRemoved(2, "Lunch"));
+        MealSchedule repaired = result.schedule();
+
+        assertNotNull(repaired.getMeal(2, "Lunch"));
+        assertNotEquals(removed, repaired.getMeal(2, "Lunch"));
+        assertEquals(Set.of(2), changedDays(result));
+        assertTrue(result.changedSlots().contains(new PlanRepairer.Slot(2, "Lunch")));
+        assertTrue(result.changedSlots().size() <= 2, result.changedSlots().toString());
+        assertSame(removed, week.getMeal(2, "Lunch"), "the original schedule is untouched");
+    }
+
+    @Test
+    public void testNewAllergyRemovesEveryMatchingMeal() {
+        User.Profile user = profile(1250);
+        PlanRepairer.Result result = repairer.repair(week, user, new PlanChange.AllergyAdded("Tuna"));
+        MealSchedule repaired = result.schedule();
+
+        for (int day = 0; day < WEEK; day++) {
+            for (String type : MealSchedule.MEAL_TYPES) {
+                Meal meal = repaired.getMeal(day, type);
+                assertFalse(PlanRepairer.conflicts(meal, List.of("tuna")), meal.toString());
+                if (!week.getMeal(day, type).getName().contains("Tuna") && !changedDays(result).contains(day)) {
+                    assertSame(week.getMeal(day, type), meal);
+                }
+            }
+        }
+        // Tuna Salad Wrap is every third lunch, starting on day 1
+        assertTrue(changedDays(result).containsAll(Set.of(1, 4)));
+        assertEquals(Set.of(1, 4), changedDays(result));
+    }
+
+    @Test
+    public void testGoalChangeOnlyTouchesDaysOffTheGoal() {
+        double goal = 1150;
+        PlanRepairer.Result result = repairer.repair(week, profile(goal), new PlanChange.GoalChanged());
+        MealSchedule repaired = result.schedule();
+
+        for (int day = 0; day < WEEK; day++) {
+            double before = Math.abs(week.getDailyCalories(day) - goal);
+            double after = Math.abs(repaired.getDailyCalories(day) - goal);
+            if (before <= 100) {
+                assertFalse(changedDays(result).contains(day), "day " + day + " was already close enough");
+            } else {
+                assertTrue(after < before, "day " + day + ": " + before + " -> " + after);
+            }
+        }
+        assertFalse(result.changedSlots().isEmpty());
+    }
+
+    @Test
+    public void testUnfillableSlotIsEmptied() {
+        PlanRepairer.Result result = repairer.repair(week, profile(1250, "yogurt"), new PlanChange.AllergyAdded("hummus"));
+        for (int day = 0; day < WEEK; day++) {
+            assertNull(result.schedule().getMeal(day, "Snack"));
+        }
+        assertThrows(IllegalArgumentException.class,
+                     () -> repairer.repair(week, profile(1250), new PlanChange.MealRemoved(WEEK, "Lunch")));
+    }
+
+    @Test
+    public void testRepairsLargeCatalogWeek() {
+        // Timing lives in PlanRepairerBenchmark; this only checks the result
+        DietPlan big = PlanRepairerBenchmark.largeCatalog(300);
+        PlanRepairer.Result result = new PlanRepairer(big)
+                .repair(MealSchedule.rotating(big, WEEK), profile(2200), new PlanChange.GoalChanged());
+        for (int day = 0; day < WEEK; day++) {
+            assertEquals(2200, result.schedule().getDailyCalories(day), 100);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.dietmaker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for the RecipeBook class
+ */
+public class RecipeBookTest {
+
+    private RecipeBook book;
+
+    @BeforeEach
+    public void setUp() {
+        book = new RecipeBook();
+        // Nutrition per 100 g
+        book.addIngredient("Tahini", 595, 17.0, 21.0, 54.0);
+        book.addIngredient("Lemon Juice", 22, 0.4, 7.0, 0.2);
+        book.addIngredient("Quinoa", 120, 4.4, 21.3, 1.9);
+        book.addIngredient("Chickpeas", 164, 8.9, 27.4, 2.6);
+        book.addRecipe("Tahini Dressing", components("Tahini", 30.0, "Lemon Juice", 20.0));
+        book.addRecipe("Quinoa Buddha Bowl", components("Quinoa", 185.0, "Chickpeas", 100.0, "Tahini Dressing", 25.0));
+    }
+
+    private static Map<String, Double> components(Object... namesAndGrams) {
+        Map<String, Double> components = new LinkedHashMap<>();
+        for (int i = 0; i < namesAndGrams.length; i += 2) {
+            components.put((String) namesAndGrams[i], (Double) namesAndGrams[i + 1]);
+        }
+        return components;
+    }
+
+    @Test
+    public void testRollUpIncludesSubRecipes() {
+        RecipeBook.Nutrition dressing = book.getNutrition("Tahini Dressing");
+        assertEquals(50.0, dressing.grams(), 1e-9);
+        assertEquals(0.3 * 595 + 0.2 * 22, dressing.calories(), 1e-9);
+
+        RecipeBook.Nutrition bowl = book.getNutrition("Quinoa Buddha Bowl");
+        double expectedCalories = 1.85 * 120 + 1.0 * 164 + 0.5 * dressing.calories(); // half the dressing
+        assertEquals(expectedCalories, bowl.calories(), 1e-9);
+        assertEquals(310.0, bowl.grams(), 1e-9);
+        assertEquals(1.85 * 1.9 + 2.6 + 0.5 * (0.3 * 54.0 + 0.2 * 0.2), bowl.fats(), 1e-9);
+    }
+
+    @Test
+    public void testUpdateRecomputesOnlyAffectedRecipes() {
+        book.addIngredient("Oats", 389, 16.9, 66.3, 6.9);
+        book.addRecipe("Overnight Oats", components("Oats", 80.0, "Lemon Juice", 5.0));
+
+        List<String> recomputed = book.updateIngredient("Tahini", 600, 18.0, 20.0, 55.0);
+        assertEquals(List.of("Tahini Dressing", "Quinoa Buddha Bowl"), recomputed);
+        assertEquals(0.3 * 600 + 0.2 * 22, book.getNutrition("Tahini Dressing").calories(), 1e-9);
+
+        recomputed = book.updateIngredient("Oats", 380, 16.0, 66.0, 7.0);
+        assertEquals(List.of("Overnight Oats"), recomputed);
+    }
+
+    @Test
+    public void testDiamondDependencyIsRecomputedOnce() {
+        // Lemon Juice reaches the bowl both directly and through the dressing
+        book.addRecipe("Lemony Bowl", components("Quinoa Buddha Bowl", 310.0, "Lemon Juice", 10.0));
+        book.addRecipe("Dressed Lemon Bowl", components("Lemony Bowl", 100.0, "Tahini Dressing", 10.0));
+
+        List<String> recomputed = book.updateIngredient("Lemon Juice", 30, 0.5, 8.0, 0.3);
+        assertEquals(List.of("Tahini Dressing", "Quinoa Buddha Bowl", "Lemony Bowl", "Dressed Lemon Bowl"),
+                     recomputed);
+
+        double dressing = 0.3 * 595 + 0.2 * 30;
+        double bowl = 1.85 * 120 + 164 + 0.5 * dressing;
+        assertEquals(bowl + 0.1 * 30, book.getNutrition("Lemony Bowl").calories(), 1e-9);
+    }
+
+    @Test
+    public void testToMeal() {
+        Meal meal = book.toMeal("Quinoa Buddha Bowl", "Quinoa with chickpeas and tahini dressing", "Lunch");
+        assertEquals("Quinoa Buddha Bowl", meal.getName());
+        assertEquals("Lunch", meal.getMealType());
+        assertEquals(Math.round(book.getNutrition("Quinoa Buddha Bowl").calories()), meal.getCalories());
+        assertThrows(IllegalArgumentException.class, () -> book.toMeal("Quinoa", "Just quinoa", "Lunch"));
+    }
+
+    @Test
+    public void testInvalidDefinitionsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> book.addIngredient("Tahini", 1, 1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> book.addRecipe("Mystery", components("Unobtainium", 10.0)));
+        assertThrows(IllegalArgumentException.class, () -> book.addRecipe("Nothing", Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> book.addRecipe("Negative", components("Quinoa", -5.0)));
+        assertThrows(IllegalArgumentException.class,
+                     () -> book.updateIngredient("Tahini Dressing", 1, 1, 1, 1));
+        assertFalse(book.contains("Mystery"));
+    }
+
+    @Test
+    public void testLargeCatalogUpdateTouchesOnlyUsers() {
+        book.addIngredient("Spinach", 23, 2.9, 3.6, 0.4);
+        for (int i = 0; i < 20_000; i++) {
+            String base = i % 100 == 0 ? "Spinach" : "Quinoa";
+            book.addRecipe("Meal " + i, components(base, 150.0, "Tahini Dressing", 20.0));
+        }
+        assertEquals(20_000 / 100, book.updateIngredient("Spinach", 25, 3.0, 3.5, 0.5).size());
+    }
+}
@@ -0,0 +1,135 @@
+package com.dietmaker;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Unit tests for the TenantCatalogService and TenantOverlay classes
+ */
+public class TenantCatalogServiceTest {
+
+    @TempDir
+    Path catalogDir;
+
+    private CatalogService catalogService;
+    private TenantCatalogService tenants;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        catalogService = new CatalogService(catalogDir.toString());
+        tenants = new TenantCatalogService(catalogService, "");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        catalogService.close();
+    }
+
+    private static List<String> mealNames(DietPlan plan, String mealType) {
+        return plan.getMealsByType(mealType).stream().map(Meal::getName).toList();
+    }
+
+    @Test
+    public void testUnknownTenantResolvesToNull() {
+        assertNull(tenants.getPlan("nobody", "balanced"));
+    }
+
+    @Test
+    public void testUntouchedPlansShareTheBasePlan() {
+        tenants.addTenant("north-clinic");
+        tenants.putMeal("north-clinic", "vegetarian", new Meal("Tofu Scramble", "Tofu with peppers", 300, 20.0, 10.0, 18.0, "Breakfast"));
+
+        DietPlan base = catalogService.current().getPlan("balanced");
+        assertSame(base, tenants.getPlan("north-clinic", "balanced"));
+        assertNotSame(catalogService.current().getPlan("vegetarian"), tenants.getPlan("north-clinic", "vegetarian"));
+    }
+
+    @Test
+    public void testOverlayAddsReplacesAndRemovesMeals() {
+        Meal lighterOmelet = new Meal("Egg and Veggie Omelet", "Egg-white omelet with spinach", 180, 20.0, 6.0, 6.0, "Breakfast");
+        Meal clinicSnack = new Meal("Edamame", "Steamed edamame with sea salt", 120, 11.0, 9.0, 5.0, "Snack");
+        tenants.putMeal("north-clinic", "balanced", lighterOmelet);
+        tenants.putMeal("north-clinic", "balanced", clinicSnack);
+        tenants.removeMeal("north-clinic", "balanced", "Smoothie Bowl");
+
+        DietPlan plan = tenants.getPlan("north-clinic", "Balanced");
+        assertEquals("Balanced Diet", plan.getName());
+        assertEquals(List.of("Whole Grain Pancakes", "Egg and Veggie Omelet"), mealNames(plan, "Breakfast"));
+        assertEquals(180, plan.getMealsByType("Breakfast").get(1).getCalories());
+        assertEquals(List.of("Greek Yogurt with Honey", "Vegetable Sticks with Hummus", "Edamame"), mealNames(plan, "Snack"));
+
+        // Other tenants and the base catalog are unaffected
+        tenants.addTenant("south-clinic");
+        assertEquals(3, tenants.getPlan("south-clinic", "balanced").getMealsByType("Breakfast").size());
+        assertEquals(3, catalogService.current().getPlan("balanced").getMealsByType("Breakfast").size());
+    }
+
+    @Test
+    public void testOverlaysAreCopyOnWrite() {
+        TenantOverlay empty = TenantOverlay.empty();
+        TenantOverlay one = empty.withMeal(new Meal("Edamame", "Edamame", 120, 11.0, 9.0, 5.0, "Snack"));
+        TenantOverlay removed = one.withoutMeal("Edamame");
+        assertEquals(0, empty.size());
+        assertEquals(1, one.size());
+        assertEquals(1, removed.size()); // only the removal marker remains
+    }
+
+    @Test
+    public void testResolvedPlanIsCachedUntilTheOverlayChanges() {
+        tenants.putMeal("north-clinic", "balanced", new Meal("Edamame", "Edamame", 120, 11.0, 9.0, 5.0, "Snack"));
+        DietPlan first = tenants.getPlan("north-clinic", "balanced");
+        assertSame(first, tenants.getPlan("north-clinic", "BALANCED"));
+        assertThrows(UnsupportedOperationException.class, () -> first.getMealsByType("Snack").clear());
+
+        tenants.removeMeal("north-clinic", "balanced", "Edamame");
+        DietPlan second = tenants.getPlan("north-clinic", "balanced");
+        assertNotSame(first, second);
+        assertFalse(mealNames(second, "Snack").contains("Edamame"));
+        assertSame(second, tenants.getPlan("north-clinic", "balanced"));
+    }
+
+    @Test
+    public void testResolvedPlanFollowsBaseReloads() throws IOException {
+        tenants.putMeal("north-clinic", "balanced", new Meal("Edamame", "Edamame", 120, 11.0, 9.0, 5.0, "Snack"));
+        DietPlan first = tenants.getPlan("north-clinic", "balanced");
+        assertEquals(List.of("Greek Yogurt with Honey", "Vegetable Sticks with Hummus", "Edamame"),
+                     mealNames(first, "Snack"));
+
+        Files.writeString(catalogDir.resolve("balanced.plan"),
+                          "plan | Balanced Diet | Updated base\nLunch | Lentil Soup | Red lentil soup | 300 | 18 | 45 | 5\n");
+        assertTrue(catalogService.reload());
+        DietPlan afterReload = tenants.getPlan("north-clinic", "balanced");
+        assertNotSame(first, afterReload);
+        assertEquals("Updated base", afterReload.getDescription());
+        assertEquals(List.of("Lentil Soup"), mealNames(afterReload, "Lunch"));
+        assertEquals(List.of("Edamame"), mealNames(afterReload, "Snack"));
+    }
+
+    @Test
+    public void testLoadTenantsFromDirectory(@TempDir Path tenantsDir) throws IOException {
+        Path clinic = Files.createDirectory(tenantsDir.resolve("east-clinic"));
+        Files.createDirectory(tenantsDir.resolve("empty-clinic"));
+        Files.writeString(clinic.resolve("keto.plan"),
+                          "plan | Clinic Keto | Our keto plan\nLunch | Steak Salad | Steak on greens | 600 | 45 | 8 | 40\n");
+        Files.writeString(clinic.resolve("vegetarian.plan"),
+                          "plan | Clinic Vegetarian | Vegetarian, our way\nSnack | Mixed Nuts | Unsalted nuts only | 160 | 6 | 6 | 14\n");
+
+        TenantCatalogService loaded = new TenantCatalogService(catalogService, tenantsDir.toString());
+        assertTrue(loaded.hasTenant("empty-clinic"));
+        assertEquals("Clinic Keto", loaded.getPlan("east-clinic", "keto").getName());
+        assertNull(loaded.getPlan("empty-clinic", "keto"));
+
+        DietPlan vegetarian = loaded.getPlan("east-clinic", "vegetarian");
+        assertEquals("Clinic Vegetarian", vegetarian.getName());
+        assertEquals(160, vegetarian.getMealsByType("Snack").get(0).getCalories());
+        assertEquals(2, vegetarian.getMealsByType("Snack").size());
+    }
+}
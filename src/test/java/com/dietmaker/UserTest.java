@@ -4,6 +4,14 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Unit tests for the User class
  */
@@ -198,4 +206,68 @@ public class UserTest {
         // Both should calculate the same calorie goal
         assertEquals(upperCaseUser.getDailyCalorieGoal(), lowerCaseUser.getDailyCalorieGoal(), 1.0);
     }
+
+    @Test
+    public void testCollectionsAreSnapshots() {
+        user.addAllergy("nuts");
+        List<String> before = user.getAllergies();
+        user.addAllergy("dairy");
+        assertEquals(1, before.size()); // earlier snapshot is unaffected
+        assertThrows(UnsupportedOperationException.class, () -> user.getAllergies().add("gluten"));
+        assertThrows(UnsupportedOperationException.class, () -> user.getFavoriteMeals().add(favoriteMeal));
+    }
+
+    @Test
+    public void testProfileSnapshotIsConsistent() {
+        User.Profile profile = user.update(p -> p.withWeight(80.0).withActivityLevel("very active"));
+        assertEquals(80.0, profile.getWeight(), 0.01);
+        assertEquals(User.calculateBMR(80.0, 175.0, 30) * 1.725, profile.getDailyCalorieGoal(), 0.01);
+        assertSame(profile, user.getProfile());
+    }
+
+    @Test
+    public void testConcurrentUpdatesAreNotLost() throws Exception {
+        int writers = 8;
+        int allergiesPerWriter = 250;
+        ExecutorService executor = Executors.newFixedThreadPool(writers + 2);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int w = 0; w < writers; w++) {
+                int writer = w;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < allergiesPerWriter; i++) {
+                        user.addAllergy("allergen-" + writer + "-" + i);
+                        user.setWeight(60.0 + writer);
+                    }
+                    return null;
+                }));
+            }
+            // Readers check that every snapshot they see is internally consistent
+            for (int r = 0; r < 2; r++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 20_000; i++) {
+                        User.Profile p = user.getProfile();
+                        double expectedGoal = User.calculateBMR(p.getWeight(), p.getHeight(), p.getAge())
+                                              * p.getActivityMultiplier();
+                        assertEquals(expectedGoal, p.getDailyCalorieGoal(), 1e-9);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(writers * allergiesPerWriter, user.getAllergies().size());
+        for (int w = 0; w < writers; w++) {
+            assertTrue(user.getAllergies().contains("allergen-" + w + "-" + (allergiesPerWriter - 1)));
+        }
+    }
 }
@@ -0,0 +1,29 @@
+package com.dietmaker;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the stylesheet cache headers in WebConfig
+ */
+public class WebConfigTest {
+
+    @Test
+    public void testOnlyVersionedPathsAreImmutable() {
+        assertEquals(WebConfig.VERSIONED_CACHE_CONTROL, cacheControlFor("/css/index-3f2a9c0d4e5b6a7f8091a2b3c4d5e6f7.css"));
+        assertTrue(WebConfig.VERSIONED_CACHE_CONTROL.contains("immutable"));
+
+        assertEquals(WebConfig.UNVERSIONED_CACHE_CONTROL, cacheControlFor("/css/index.css"));
+        assertEquals(WebConfig.UNVERSIONED_CACHE_CONTROL, cacheControlFor("/css/diet-plan.css"));
+        assertFalse(WebConfig.UNVERSIONED_CACHE_CONTROL.contains("immutable"));
+    }
+
+    private static String cacheControlFor(String path) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", path);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        assertTrue(new WebConfig.AssetCacheInterceptor().preHandle(request, response, new Object()));
+        return response.getHeader("Cache-Control");
+    }
+}
@@ -0,0 +1,150 @@
+package com.dietmaker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Unit tests for the WeightHistory class
+ */
+public class WeightHistoryTest {
+
+    private static final LocalDate START = LocalDate.of(2024, 1, 1); // a Monday
+
+    private WeightHistory history;
+
+    @BeforeEach
+    public void setUp() {
+        history = new WeightHistory();
+    }
+
+    @Test
+    public void testRoundTripAcrossBlocks() {
+        Random random = new Random(42);
+        double[] weights = new double[1000];
+        LocalDate date = START;
+        LocalDate[] dates = new LocalDate[weights.length];
+        for (int i = 0; i < weights.length; i++) {
+            weights[i] = Math.round((80.0 - i * 0.01 + random.nextGaussian()) * 10) / 10.0;
+            dates[i] = date;
+            history.record(date, weights[i]);
+            date = date.plusDays(1 + random.nextInt(3)); // irregular weigh-ins
+        }
+
+        assertEquals(weights.length, history.size());
+        List<WeightHistory.Sample> all = history.range(START, date);
+        assertEquals(weights.length, all.size());
+        for (int i = 0; i < weights.length; i++) {
+            assertEquals(dates[i], all.get(i).date());
+            assertEquals(weights[i], all.get(i).weight(), 0.0);
+        }
+        assertTrue(history.compressedBytes() < weights.length * 12L,
+                   "history should be smaller than raw int+double storage");
+    }
+
+    @Test
+    public void testRangeIsInclusiveAndPartial() {
+        for (int i = 0; i < 300; i++) {
+            history.record(START.plusDays(i), 70.0 + i);
+        }
+        List<WeightHistory.Sample> slice = history.range(START.plusDays(100), START.plusDays(199));
+        assertEquals(100, slice.size());
+        assertEquals(170.0, slice.get(0).weight(), 0.0);
+        assertEquals(269.0, slice.get(99).weight(), 0.0);
+
+        assertTrue(history.range(START.minusDays(10), START.minusDays(1)).isEmpty());
+    }
+
+    @Test
+    public void testSameDayReplacesAndOutOfOrderRejected() {
+        history.record(START, 80.0);
+        history.record(START, 79.5);
+        assertEquals(1, history.size());
+        assertEquals(79.5, history.latest().weight(), 0.0);
+
+        assertThrows(IllegalArgumentException.class, () -> history.record(START.minusDays(1), 81.0));
+    }
+
+    @Test
+    public void testWeeklyAndMonthlyAverages() {
+        for (int i = 0; i < 14; i++) {
+            history.record(START.plusDays(i), i < 7 ? 80.0 : 78.0);
+        }
+        List<WeightHistory.Bucket> weeks = history.weeklyAverages(START, START.plusDays(13));
+        assertEquals(2, weeks.size());
+        assertEquals(START, weeks.get(0).start());
+        assertEquals(80.0, weeks.get(0).averageWeight(), 0.001);
+        assertEquals(78.0, weeks.get(1).averageWeight(), 0.001);
+        assertEquals(7, weeks.get(1).samples());
+
+        List<WeightHistory.Bucket> months = history.monthlyAverages(START, START.plusDays(13));
+        assertEquals(1, months.size());
+        assertEquals(79.0, months.get(0).averageWeight(), 0.001);
+    }
+
+    @Test
+    public void testTrendUsesBlockSummaries() {
+        for (int i = 0; i < 500; i++) {
+            history.record(START.plusDays(i), 90.0 - 0.05 * i);
+        }
+        assertEquals(-0.05, history.trend(START, START.plusDays(499)), 1e-9);
+        assertEquals(-0.05, history.trend(START.plusDays(37), START.plusDays(301)), 1e-9);
+        assertTrue(Double.isNaN(new WeightHistory().trend(START, START.plusDays(10))));
+    }
+
+    @Test
+    public void testBmiRange() {
+        history.record(START, 70.0);
+        List<WeightHistory.Sample> bmi = history.bmiRange(START, START, 175.0);
+        assertEquals(70.0 / (1.75 * 1.75), bmi.get(0).weight(), 0.01);
+    }
+
+    @Test
+    public void testOpenBufferGrowsOnDemand() {
+        long empty = history.compressedBytes();
+        assertTrue(empty < 64, "an empty history should not allocate a block buffer, was " + empty);
+
+        history.record(START, 80.0);
+        assertTrue(history.compressedBytes() < WeightHistory.BLOCK_SIZE * 12L);
+        for (int i = 1; i < WeightHistory.BLOCK_SIZE + 3; i++) {
+            history.record(START.plusDays(i), 80.0 - i * 0.1);
+        }
+        assertEquals(WeightHistory.BLOCK_SIZE + 3, history.size());
+        assertEquals(80.0 - 0.1 * (WeightHistory.BLOCK_SIZE + 2), history.latest().weight(), 1e-9);
+        assertEquals(WeightHistory.BLOCK_SIZE + 3, history.range(START, START.plusDays(400)).size());
+    }
+
+    @Test
+    public void testBytesRoundTrip() {
+        for (int i = 0; i < 300; i++) {
+            history.record(START.plusDays(i * 2), Math.round((75.0 + Math.sin(i / 9.0)) * 10) / 10.0);
+        }
+        byte[] encoded = history.toBytes();
+        assertTrue(encoded.length < 300 * 12, "encoded history should stay compressed, was " + encoded.length);
+
+        WeightHistory copy = new WeightHistory();
+        copy.readFrom(encoded);
+        assertEquals(history.size(), copy.size());
+        assertEquals(history.range(START, START.plusDays(600)), copy.range(START, START.plusDays(600)));
+        assertEquals(history.latest(), copy.latest());
+
+        WeightHistory empty = new WeightHistory();
+        empty.readFrom(new WeightHistory().toBytes());
+        assertTrue(empty.isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> new WeightHistory().readFrom(new byte[] {0, 0, 0, 1, 0}));
+    }
+
+    @Test
+    public void testUserRecordWeight() {
+        User user = new User("John Doe", 30, 70.0, 175.0, "moderately active");
+        double originalGoal = user.getDailyCalorieGoal();
+        user.recordWeight(START, 72.0);
+        assertEquals(72.0, user.getWeight(), 0.0);
+        assertEquals(1, user.getWeightHistory().size());
+        assertTrue(user.getDailyCalorieGoal() > originalGoal);
+    }
+}
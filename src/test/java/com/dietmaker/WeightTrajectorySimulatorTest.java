@@ -0,0 +1,79 @@
+package com.dietmaker;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+/**
+ * Unit tests for the WeightTrajectorySimulator class
+ */
+public class WeightTrajectorySimulatorTest {
+
+    private User user;
+    private WeightTrajectorySimulator simulator;
+
+    @BeforeEach
+    public void setUp() {
+        user = new User("John Doe", 30, 90.0, 175.0, "moderately active");
+        simulator = new WeightTrajectorySimulator(2000, 7L);
+    }
+
+    @Test
+    public void testDeficitPlanLosesWeightWithOrderedBands() {
+        double deficitPlan = user.getDailyCalorieGoal() - 500;
+        WeightTrajectorySimulator.Projection projection = simulator.simulate(user, deficitPlan, 0.85, 12);
+
+        assertEquals(12, projection.getWeeks());
+        assertEquals(90.0, projection.getMedian(0), 0.0);
+        assertTrue(projection.getMedian(12) < 90.0);
+        for (int week = 1; week <= 12; week++) {
+            assertTrue(projection.getLower(week) <= projection.getMedian(week));
+            assertTrue(projection.getMedian(week) <= projection.getUpper(week));
+            assertTrue(projection.getLower(week) < projection.getUpper(week));
+        }
+    }
+
+    @Test
+    public void testHigherAdherenceLosesMore() {
+        double deficitPlan = user.getDailyCalorieGoal() - 500;
+        double strict = simulator.simulate(user, deficitPlan, 0.95, 12).getMedian(12);
+        double loose = simulator.simulate(user, deficitPlan, 0.50, 12).getMedian(12);
+        assertTrue(strict < loose);
+    }
+
+    @Test
+    public void testSameSeedIsReproducible() {
+        double plan = 2000;
+        WeightTrajectorySimulator.Projection first = simulator.simulate(user, plan, 0.85, 8);
+        WeightTrajectorySimulator.Projection second = new WeightTrajectorySimulator(2000, 7L).simulate(user, plan, 0.85, 8);
+        for (int week = 0; week <= 8; week++) {
+            assertEquals(first.getMedian(week), second.getMedian(week), 0.0);
+            assertEquals(first.getLower(week), second.getLower(week), 0.0);
+        }
+    }
+
+    @Test
+    public void testSimulateWithDietPlan() {
+        DietPlan balanced = DietPlan.DietPlanFactory.createBalancedDiet();
+        WeightTrajectorySimulator.Projection projection = simulator.simulate(user, balanced, 0.85, 4);
+        assertEquals(4, projection.getWeeks());
+        assertTrue(projection.getMedian(4) < 90.0);
+    }
+
+    @Test
+    public void testBatchMode() {
+        List<User> users = List.of(user, new User("Jane Doe", 40, 70.0, 165.0, "sedentary"));
+        double[] plans = {1800, 1400};
+        WeightTrajectorySimulator.Projection[] projections = simulator.simulateAll(users, plans, 0.85, 6);
+
+        assertEquals(2, projections.length);
+        assertEquals(90.0, projections[0].getMedian(0), 0.0);
+        assertEquals(70.0, projections[1].getMedian(0), 0.0);
+        assertTrue(projections[1].getMedian(6) < 70.0);
+
+        assertThrows(IllegalArgumentException.class,
+                     () -> simulator.simulateAll(users, new double[] {1800}, 0.85, 6));
+    }
+}